@@ -0,0 +1,31 @@
+package benchmarks;
+
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+
+/**
+ * Page object with a realistic number of fields, initialised by each strategy under comparison
+ */
+public class BenchmarkPage {
+
+    @FindBy(id = "first-name") WebElement firstName;
+    @FindBy(id = "last-name") WebElement lastName;
+    @FindBy(id = "email") WebElement email;
+    @FindBy(id = "phone") WebElement phone;
+    @FindBy(name = "street") WebElement street;
+    @FindBy(name = "city") WebElement city;
+    @FindBy(name = "zip") WebElement zip;
+    @FindBy(name = "country") WebElement country;
+    @FindBy(css = "#billing .same-as-shipping") WebElement sameAsShipping;
+    @FindBy(css = "#billing .street") WebElement billingStreet;
+    @FindBy(css = "#billing .city") WebElement billingCity;
+    @FindBy(css = "#billing .zip") WebElement billingZip;
+    @FindBy(className = "newsletter") WebElement newsletter;
+    @FindBy(className = "terms") WebElement terms;
+    @FindBy(xpath = "//select[@id='shipping-method']") WebElement shippingMethod;
+    @FindBy(xpath = "//input[@id='promo-code']") WebElement promoCode;
+    @FindBy(linkText = "Apply") WebElement applyPromo;
+    @FindBy(linkText = "Back to cart") WebElement backToCart;
+    @FindBy(id = "continue") WebElement continueButton;
+    @FindBy(id = "cancel") WebElement cancelButton;
+}
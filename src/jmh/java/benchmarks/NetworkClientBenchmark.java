@@ -0,0 +1,139 @@
+package benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.qa.network.HttpMethods;
+import org.qa.network.NetworkClient;
+import org.qa.network.NetworkRequest;
+import org.qa.network.ResponseCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of NetworkClient against an in-process HTTP server on the loopback interface:
+ * request building, JSON serialisation of the body, the shared connection pool and JSON mapping of the response.
+ * The server answers from memory, so the numbers are framework overhead plus loopback I/O
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NetworkClientBenchmark {
+
+    private static final Map<String, String> HEADERS = Map.of("Accept", "application/json");
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private NetworkClient client;
+    private NetworkClient cachingClient;
+    private String userUrl;
+    private String usersUrl;
+    private User newUser;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        // Without TCP_NODELAY the separate header and body writes wait for a delayed ACK, ~40ms per request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        byte[] user = json(new StringBuilder()).toString().getBytes(StandardCharsets.UTF_8);
+        StringBuilder list = new StringBuilder("[");
+        for (int i = 0; i < 50; i++) {
+            json(list.append(i == 0 ? "" : ","));
+        }
+        byte[] users = list.append("]").toString().getBytes(StandardCharsets.UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverThreads);
+        server.createContext("/users/1", exchange -> {
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            respond(exchange, user);
+        });
+        server.createContext("/users", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            respond(exchange, "POST".equals(exchange.getRequestMethod()) ? user : users);
+        });
+        server.start();
+
+        String base = "http://localhost:" + server.getAddress().getPort();
+        userUrl = base + "/users/1";
+        usersUrl = base + "/users";
+        client = new NetworkClient();
+        cachingClient = new NetworkClient(new ResponseCache(16, Duration.ofMinutes(10)));
+        newUser = new User();
+        newUser.name = "Jane Doe";
+        newUser.email = "jane@example.com";
+        newUser.roles = List.of("admin", "tester");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public User getObject() {
+        return client.execute(userUrl, HttpMethods.GET, null, HEADERS, User.class);
+    }
+
+    @Benchmark
+    public User[] getList() {
+        return client.execute(usersUrl, HttpMethods.GET, null, HEADERS, User[].class);
+    }
+
+    @Benchmark
+    public User postObject() {
+        return client.execute(usersUrl, HttpMethods.POST, newUser, HEADERS, User.class);
+    }
+
+    @Benchmark
+    public User getObjectFromCache() {
+        return cachingClient.execute(NetworkRequest.of(userUrl, HttpMethods.GET, null, HEADERS, User.class));
+    }
+
+    private static StringBuilder json(StringBuilder out) {
+        return out.append("{\"id\":1,\"name\":\"Jane Doe\",\"email\":\"jane@example.com\",\"active\":true,")
+                .append("\"roles\":[\"admin\",\"tester\"],\"address\":{\"street\":\"Main St 1\",\"city\":\"Springfield\"}}");
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Response and request body mapped by the client
+     */
+    public static class User {
+        public long id;
+        public String name;
+        public String email;
+        public boolean active;
+        public List<String> roles;
+        public Map<String, String> address;
+    }
+}
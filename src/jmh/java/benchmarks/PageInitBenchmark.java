@@ -0,0 +1,44 @@
+package benchmarks;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.PageFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.qa.helpers.PageElements;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating a page object, as done by SeleniumWrapper.getPage on every test step:
+ * reflective PageFactory proxies, the reflective bulk initialiser and the compile-time generated initialiser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PageInitBenchmark {
+
+    private final WebDriver driver = new StubDriver();
+
+    @Benchmark
+    public BenchmarkPage pageFactoryProxies() {
+        BenchmarkPage page = new BenchmarkPage();
+        PageFactory.initElements(driver, page);
+        return page;
+    }
+
+    @Benchmark
+    public BenchmarkPage reflectiveBulkInitializer() {
+        BenchmarkPage page = new BenchmarkPage();
+        PageElements.initElementsReflectively(driver, page);
+        return page;
+    }
+
+    @Benchmark
+    public BenchmarkPage generatedInitializer() {
+        return PageElements.create(driver, BenchmarkPage.class);
+    }
+}
@@ -0,0 +1,99 @@
+package benchmarks;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lightweight in-process driver for benchmarks, no browser or driver protocol involved.
+ * Scripts that receive a list of locators answer with one {@link StubElement} per locator
+ */
+public class StubDriver implements WebDriver, JavascriptExecutor {
+
+    private String currentUrl = "about:blank";
+
+    @Override
+    public void get(String url) {
+        currentUrl = url;
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return currentUrl;
+    }
+
+    @Override
+    public String getTitle() {
+        return "stub";
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return List.of(new StubElement());
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        return new StubElement();
+    }
+
+    @Override
+    public String getPageSource() {
+        return "<html></html>";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void quit() {
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        return Set.of("main");
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return "main";
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        throw new UnsupportedOperationException("switchTo is not supported by the stub driver");
+    }
+
+    @Override
+    public Navigation navigate() {
+        throw new UnsupportedOperationException("navigate is not supported by the stub driver");
+    }
+
+    @Override
+    public Options manage() {
+        throw new UnsupportedOperationException("manage is not supported by the stub driver");
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        if (args.length > 0 && args[0] instanceof List) {
+            List<WebElement> elements = new ArrayList<>();
+            for (int i = 0; i < ((List<?>) args[0]).size(); i++) {
+                elements.add(new StubElement());
+            }
+            return elements;
+        }
+        return null;
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        return null;
+    }
+}
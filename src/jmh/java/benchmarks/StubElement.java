@@ -0,0 +1,98 @@
+package benchmarks;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+
+/**
+ * In-memory element returned by {@link StubDriver}, every call is a no-op so benchmarks measure framework overhead only
+ */
+public class StubElement implements WebElement {
+
+    @Override
+    public void click() {
+    }
+
+    @Override
+    public void submit() {
+    }
+
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    @Override
+    public String getTagName() {
+        return "input";
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String getAttribute(String name) {
+        return null;
+    }
+
+    @Override
+    public boolean isSelected() {
+        return false;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public String getText() {
+        return "text";
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return List.of(new StubElement());
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        return new StubElement();
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        return true;
+    }
+
+    @Override
+    public Point getLocation() {
+        return new Point(0, 0);
+    }
+
+    @Override
+    public Dimension getSize() {
+        return new Dimension(100, 20);
+    }
+
+    @Override
+    public Rectangle getRect() {
+        return new Rectangle(getLocation(), getSize());
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        return "";
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        throw new UnsupportedOperationException("Screenshots are not supported by the stub driver");
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.qa.helpers.PageElements;
+import org.qa.helpers.SeleniumWrapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead SeleniumWrapper adds on top of the element calls it wraps: cached element indirection, error handling
+ * and latency recording. The stub elements do no work, so the difference between the direct and the wrapped
+ * variants is what the framework costs per test step
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WrapperOverheadBenchmark {
+
+    private BenchmarkPage page;
+
+    @Setup
+    public void createPage() {
+        page = PageElements.create(new StubDriver(), BenchmarkPage.class);
+    }
+
+    @Benchmark
+    public void clickDirect() {
+        page.continueButton.click();
+    }
+
+    @Benchmark
+    public void clickWrapped() {
+        SeleniumWrapper.clickOnElement(page.continueButton);
+    }
+
+    @Benchmark
+    public void inputTextDirect() {
+        page.email.click();
+        page.email.clear();
+        page.email.sendKeys("jane@example.com");
+    }
+
+    @Benchmark
+    public void inputTextWrapped() {
+        SeleniumWrapper.inputText(page.email, "jane@example.com");
+    }
+
+    @Benchmark
+    public boolean isDisplayedDirect() {
+        return page.terms.isDisplayed();
+    }
+
+    @Benchmark
+    public boolean isDisplayedWrapped() {
+        return SeleniumWrapper.isDisplayed(page.terms);
+    }
+}
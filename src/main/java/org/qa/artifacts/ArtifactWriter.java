@@ -0,0 +1,318 @@
+package org.qa.artifacts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.qa.common.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes test artifacts off the test thread. Every artifact is stored once by the SHA-256 of its content in a shared
+ * blobs directory, gzipped when it is text, and each hand-over gets a directory with a manifest.json that points at
+ * its blobs. The pool and its queue are bounded, when the queue is full the submitting thread writes the artifacts
+ * itself so nothing is dropped. When a blob would take the directory over {@link Config#ARTIFACTS_MAX_MB}, the least
+ * recently used blobs of earlier runs are deleted to make room. Only blobs that do not fit next to the ones of the
+ * current run are skipped, and the manifest says so
+ */
+@Slf4j
+public class ArtifactWriter {
+
+    private static final ArtifactWriter INSTANCE = new ArtifactWriter(Paths.get(Config.ARTIFACTS_DIR), Config.ARTIFACTS_MAX_MB * 1024L * 1024L);
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+
+    private final Path root;
+    private final Path blobs;
+    private final long maxBytes;
+    private final Set<String> storedBlobs = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger deduplicated = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger evicted = new AtomicInteger();
+    private volatile ThreadPoolExecutor executor = newExecutor();
+
+    /** Guards the disk budget, usedBytes is -1 until the blobs of earlier runs have been measured */
+    private final Object budgetLock = new Object();
+    private long usedBytes = -1;
+    /** Sizes of the blobs of earlier runs that the current run has not used, least recently used first */
+    private final LinkedHashMap<String, Long> evictable = new LinkedHashMap<>();
+
+    ArtifactWriter(Path root, long maxBytes) {
+        this.root = root;
+        this.blobs = root.resolve("blobs");
+        this.maxBytes = maxBytes;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "artifact-writer-shutdown"));
+    }
+
+    public static ArtifactWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return blobs written since the start of the run
+     */
+    public int getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return artifacts that were identical to a stored blob and were not written again
+     */
+    public int getDeduplicated() {
+        return deduplicated.get();
+    }
+
+    /**
+     * @return artifacts not written because of the disk budget
+     */
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * @return blobs of earlier runs deleted to keep the directory within the disk budget
+     */
+    public int getEvicted() {
+        return evicted.get();
+    }
+
+    /**
+     * This method hands artifacts over to the writer pool and returns at once, or writes them on the calling
+     * thread when the queue is full
+     * @param name directory name for this hand-over, e.g. the test name
+     * @param details fields of the manifest
+     * @param artifacts contents to store
+     * @return directory the manifest will be written to
+     */
+    public Path submit(String name, Map<String, Object> details, List<Artifact> artifacts) {
+        Path directory = root.resolve(name.replaceAll("[^A-Za-z0-9._\\-\\[\\]]", "_"));
+        executor.execute(() -> write(directory, details, artifacts));
+        return directory;
+    }
+
+    /**
+     * This method waits until every artifact handed over so far is on disk, it is called at the end of the suite
+     */
+    public synchronized void drain() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("[ArtifactWriter] {} artifact writes did not finish within {} seconds", executor.getQueue().size() + executor.getActiveCount(), DRAIN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (written.get() + deduplicated.get() + skipped.get() > 0) {
+            long used;
+            synchronized (budgetLock) {
+                used = Math.max(usedBytes, 0);
+            }
+            log.info("[ArtifactWriter] {} artifacts written, {} deduplicated, {} skipped over the disk budget, {} old blobs evicted, {} KB used in {}",
+                    written.get(), deduplicated.get(), skipped.get(), evicted.get(), used / 1024, root);
+        }
+        executor = newExecutor();
+    }
+
+    private void write(Path directory, Map<String, Object> details, List<Artifact> artifacts) {
+        Map<String, Object> manifest = new LinkedHashMap<>(details);
+        Map<String, String> files = new LinkedHashMap<>();
+        for (Artifact artifact : artifacts) {
+            try {
+                Path blob = store(artifact);
+                files.put(artifact.getName(), blob == null
+                        ? "skipped, the " + maxBytes / (1024 * 1024) + " MB artifact budget is used up"
+                        : directory.relativize(blob).toString().replace('\\', '/'));
+            } catch (IOException | UncheckedIOException e) {
+                files.put(artifact.getName(), "failed: " + e.getMessage());
+                log.warn("[ArtifactWriter] Could not write {} to {}: {}", artifact.getName(), directory, e.getMessage());
+            }
+        }
+        manifest.put("artifacts", files);
+        try {
+            Files.createDirectories(directory);
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(directory.resolve("manifest.json").toFile(), manifest);
+        } catch (IOException e) {
+            log.warn("[ArtifactWriter] Could not write manifest to {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the blob holding the content, or null when it does not fit in the budget
+     */
+    @Nullable
+    private Path store(Artifact artifact) throws IOException {
+        String fileName = sha256(artifact.getContent()) + "." + artifact.getExtension() + (artifact.isText() ? ".gz" : "");
+        Path blob = blobs.resolve(fileName);
+        if (!storedBlobs.add(fileName) || reuse(fileName, blob)) {
+            deduplicated.incrementAndGet();
+            return blob;
+        }
+        byte[] data = artifact.isText() ? gzip(artifact.getContent()) : artifact.getContent();
+        if (!reserve(data.length)) {
+            storedBlobs.remove(fileName);
+            skipped.incrementAndGet();
+            return null;
+        }
+        Files.createDirectories(blobs);
+        Path temp = Files.createTempFile(blobs, fileName, ".tmp");
+        Files.write(temp, data);
+        Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        written.incrementAndGet();
+        return blob;
+    }
+
+    /**
+     * A blob an earlier run left behind is used by this run now, so it can no longer be evicted
+     * @return true when the blob is on disk
+     */
+    private boolean reuse(String fileName, Path blob) {
+        synchronized (budgetLock) {
+            measure();
+            evictable.remove(fileName);
+            if (!Files.exists(blob)) {
+                return false;
+            }
+        }
+        try {
+            Files.setLastModifiedTime(blob, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.debug("[ArtifactWriter] Could not touch {}: {}", blob, e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * This method makes room for a new blob, evicting blobs of earlier runs while the directory is over the budget
+     * @return false when the blob does not fit even with every blob of earlier runs evicted
+     */
+    private boolean reserve(long bytes) {
+        synchronized (budgetLock) {
+            measure();
+            Iterator<Map.Entry<String, Long>> oldest = evictable.entrySet().iterator();
+            while (usedBytes + bytes > maxBytes && oldest.hasNext()) {
+                Map.Entry<String, Long> entry = oldest.next();
+                oldest.remove();
+                try {
+                    Files.deleteIfExists(blobs.resolve(entry.getKey()));
+                    usedBytes -= entry.getValue();
+                    evicted.incrementAndGet();
+                } catch (IOException e) {
+                    log.warn("[ArtifactWriter] Could not evict {}: {}", entry.getKey(), e.getMessage());
+                }
+            }
+            if (usedBytes + bytes > maxBytes) {
+                return false;
+            }
+            usedBytes += bytes;
+            return true;
+        }
+    }
+
+    /**
+     * Disk use starts from what earlier runs left in the directory, those blobs are queued for eviction oldest first.
+     * Called with the budget lock held
+     */
+    private void measure() {
+        if (usedBytes >= 0) {
+            return;
+        }
+        usedBytes = 0;
+        if (!Files.isDirectory(blobs)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(blobs)) {
+            files.map(Path::toFile)
+                    .filter(file -> file.isFile() && !file.getName().endsWith(".tmp"))
+                    .sorted(Comparator.comparingLong(File::lastModified))
+                    .forEach(file -> {
+                        usedBytes += file.length();
+                        evictable.put(file.getName(), file.length());
+                    });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("[ArtifactWriter] Could not measure {}: {}", blobs, e.getMessage());
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("[ArtifactWriter] SHA-256 is not available", e);
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(Config.ARTIFACTS_WRITER_THREADS, Config.ARTIFACTS_WRITER_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Config.ARTIFACTS_QUEUE_SIZE), task -> {
+                    Thread thread = new Thread(task, "artifact-writer-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, executor) -> task.run()); // a full queue or a pool shut down by drain: write on the caller
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * One file to store, text is gzipped, binary formats such as PNG are compressed already and stored as they are
+     */
+    @Getter
+    public static class Artifact {
+        private final String name;
+        private final String extension;
+        private final byte[] content;
+        private final boolean text;
+
+        private Artifact(String name, String extension, byte[] content, boolean text) {
+            this.name = name;
+            this.extension = extension;
+            this.content = content;
+            this.text = text;
+        }
+
+        public static Artifact text(String name, String extension, String content) {
+            return new Artifact(name, extension, content.getBytes(StandardCharsets.UTF_8), true);
+        }
+
+        public static Artifact binary(String name, String extension, byte[] content) {
+            return new Artifact(name, extension, content, false);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.qa.artifacts;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+import org.qa.common.Config;
+import org.qa.driverfactory.WebDriverFactory;
+import org.qa.metrics.EventBuffer;
+import org.testng.ITestResult;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Screenshot, page source, browser log, recent events and stack trace of a failed or skipped test.
+ * Only the calls to the browser run on the test thread, while its session is still open, compressing, hashing
+ * and writing happens in the {@link ArtifactWriter}
+ */
+@Slf4j
+public class FailureArtifacts {
+
+    private FailureArtifacts() {}
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    /**
+     * This method takes the artifacts of the test from the browser of the current thread and hands them to the writer
+     * @param result failed or skipped test
+     * @return directory the artifacts are written to, or null when they are disabled
+     */
+    @Nullable
+    public static Path capture(ITestResult result) {
+        if (!Config.ARTIFACTS_ENABLED) {
+            return null;
+        }
+        String status = result.getStatus() == ITestResult.SKIP ? "skipped" : "failed";
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("test", result.getTestClass().getName() + "." + result.getName());
+        details.put("status", status);
+        details.put("time", LocalDateTime.now().toString());
+        List<ArtifactWriter.Artifact> artifacts = new ArrayList<>();
+
+        Throwable error = result.getThrowable();
+        if (error != null) {
+            details.put("error", String.valueOf(error));
+            StringWriter stackTrace = new StringWriter();
+            error.printStackTrace(new PrintWriter(stackTrace));
+            artifacts.add(ArtifactWriter.Artifact.text("stackTrace", "txt", stackTrace.toString()));
+        }
+
+        List<EventBuffer.Event> events = EventBuffer.snapshot();
+        if (!events.isEmpty()) {
+            artifacts.add(ArtifactWriter.Artifact.text("events", "jsonl", EventBuffer.toJsonLines(events)));
+        }
+
+        WebDriver driver = WebDriverFactory.getWebDriver();
+        if (driver != null) {
+            details.put("url", fromBrowser("current URL", driver::getCurrentUrl));
+            byte[] screenshot = driver instanceof TakesScreenshot
+                    ? fromBrowser("screenshot", () -> ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES)) : null;
+            if (screenshot != null) {
+                artifacts.add(ArtifactWriter.Artifact.binary("screenshot", "png", screenshot));
+            }
+            String pageSource = fromBrowser("page source", driver::getPageSource);
+            if (pageSource != null) {
+                artifacts.add(ArtifactWriter.Artifact.text("pageSource", "html", pageSource));
+            }
+            String browserLog = fromBrowser("browser log", () -> browserLog(driver));
+            if (browserLog != null && !browserLog.isEmpty()) {
+                artifacts.add(ArtifactWriter.Artifact.text("browserLog", "log", browserLog));
+            }
+        }
+
+        Object browser = result.getAttribute("browser");
+        String name = result.getTestClass().getRealClass().getSimpleName() + "." + result.getName()
+                + (browser != null ? "[" + browser + "]" : "") + "-" + status + "-" + LocalDateTime.now().format(TIME);
+        Path directory = ArtifactWriter.getInstance().submit(name, details, artifacts);
+        result.setAttribute("artifacts", directory.toString());
+        log.info("[FailureArtifacts] {} artifacts of {} test {} go to {}", artifacts.size(), status, result.getName(), directory);
+        return directory;
+    }
+
+    private static String browserLog(WebDriver driver) {
+        StringBuilder text = new StringBuilder();
+        for (LogEntry entry : driver.manage().logs().get(LogType.BROWSER)) {
+            text.append(entry).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * The session may be the reason the test failed, every call to it may fail as well
+     */
+    @Nullable
+    private static <T> T fromBrowser(String what, Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (WebDriverException | UnsupportedOperationException e) {
+            log.debug("[FailureArtifacts] Could not take the {}: {}", what, e.getMessage());
+            return null;
+        }
+    }
+}
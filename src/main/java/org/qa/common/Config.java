@@ -4,4 +4,98 @@ public class Config {
     public static final String URL = "https://www.saucedemo.com/";
     public static final String VALID_USER_NAME = "standard_user";
     public static final String VALID_PASSWORD =  "secret_sauce";
+
+    // Driver pool: reuse live browser sessions across tests instead of cold starting one per thread
+    public static final boolean DRIVER_POOL_ENABLED = Boolean.parseBoolean(System.getProperty("driver.pool.enabled", "true"));
+    public static final int DRIVER_POOL_MAX_IDLE_PER_KEY = Integer.getInteger("driver.pool.maxIdlePerKey", 4);
+    public static final int DRIVER_POOL_MAX_REUSE = Integer.getInteger("driver.pool.maxReuse", 50);
+
+    // Driver lifecycle: sessions of one browser type in use at the same time, and how long a test waits for one
+    public static final int DRIVER_MAX_SESSIONS_PER_BROWSER = Integer.getInteger("driver.maxSessionsPerBrowser", 4);
+    public static final int DRIVER_ACQUIRE_TIMEOUT_SECONDS = Integer.getInteger("driver.acquireTimeoutSeconds", 300);
+
+    // Driver services: one long-lived chromedriver/msedgedriver per browser type serving every session, geckodriver is never shared
+    public static final boolean DRIVER_SERVICE_SHARED = Boolean.parseBoolean(System.getProperty("driver.service.shared", "false"));
+    public static final String DRIVER_BINARY_CACHE = System.getProperty("driver.binaryCache",
+            System.getProperty("user.home") + "/.cache/qa-framework/driver-binaries.properties");
+
+    // Browser profiles applied to every session on top of the ones on @Browser, comma separated, e.g. headless-lean,eager-load
+    public static final String BROWSER_PROFILES = System.getProperty("browser.profiles", "");
+
+    // Browser network profile: none, no-trackers, lean or slow-3g, see NetworkProfile.named
+    public static final String BROWSER_NETWORK_PROFILE = System.getProperty("browser.networkProfile", "none");
+
+    // Page metrics: Navigation Timing and Web Vitals of every page opened with openUrl, collected when it is left, report written at the end of the suite
+    public static final boolean PAGE_METRICS_ENABLED = Boolean.parseBoolean(System.getProperty("page.metrics.enabled", "true"));
+    public static final String PAGE_METRICS_DIR = System.getProperty("page.metrics.dir", "build/reports/page-metrics");
+
+    // Latency metrics: histograms of wrapper actions and HTTP calls by operation, page and locator, written at the end of the suite
+    public static final boolean LATENCY_METRICS_ENABLED = Boolean.parseBoolean(System.getProperty("latency.metrics.enabled", "true"));
+    public static final String LATENCY_METRICS_DIR = System.getProperty("latency.metrics.dir", "build/reports/latency");
+
+    // Performance budgets: what a broken @PerfBudget or step budget does, fail, warn or off
+    public static final String PERF_BUDGET_MODE = System.getProperty("perf.budget.mode", "fail");
+
+    // Performance baseline: rolling window of timings per test kept between runs, and when a slower run is a regression (warn, fail or off)
+    public static final String PERF_BASELINE_FILE = System.getProperty("perf.baseline.file", "perf-baseline/baseline.json");
+    public static final int PERF_BASELINE_WINDOW = Integer.getInteger("perf.baseline.window", 20);
+    public static final int PERF_BASELINE_MIN_SAMPLES = Integer.getInteger("perf.baseline.minSamples", 5);
+    public static final String PERF_REGRESSION_MODE = System.getProperty("perf.regression.mode", "warn");
+    public static final int PERF_REGRESSION_MIN_PERCENT = Integer.getInteger("perf.regression.minPercent", 20);
+
+    // Adaptive waits: polling backs off exponentially from an interval learned per locator, the history is kept between runs
+    public static final boolean WAIT_HISTORY_ENABLED = Boolean.parseBoolean(System.getProperty("wait.history.enabled", "true"));
+    public static final String WAIT_HISTORY_FILE = System.getProperty("wait.history.file", "perf-baseline/wait-history.json");
+    public static final int WAIT_MIN_POLL_MILLIS = Integer.getInteger("wait.minPollMillis", 5);
+    public static final int WAIT_HISTORY_MIN_SAMPLES = Integer.getInteger("wait.history.minSamples", 5);
+    public static final int WAIT_SLOW_MIN_MILLIS = Integer.getInteger("wait.slowMinMillis", 250);
+
+    // Test history: durations of every test, written per run and shard and merged by the mergeShards Gradle task
+    public static final String TEST_HISTORY_DIR = System.getProperty("test.history.dir", "test-history");
+    public static final String TEST_SHARD = System.getProperty("test.shard", "all");
+
+    // Test dependency index: page objects, test modules and helpers each test class uses, read by the affectedTests Gradle task
+    public static final String TEST_DEPENDENCY_INDEX = System.getProperty("test.dependencies.index", "build/test-dependencies.json");
+
+    // Failure artifacts: screenshot, page source and browser log of failed and skipped tests, written by a bounded background pool
+    public static final boolean ARTIFACTS_ENABLED = Boolean.parseBoolean(System.getProperty("artifacts.enabled", "true"));
+    public static final String ARTIFACTS_DIR = System.getProperty("artifacts.dir", "build/reports/failure-artifacts");
+    public static final int ARTIFACTS_WRITER_THREADS = Integer.getInteger("artifacts.writerThreads", 2);
+    public static final int ARTIFACTS_QUEUE_SIZE = Integer.getInteger("artifacts.queueSize", 32);
+    public static final int ARTIFACTS_MAX_MB = Integer.getInteger("artifacts.maxMb", 500);
+
+    // Event buffer: last operations of every thread kept in a fixed-size ring, written out with the failure artifacts or on request
+    public static final boolean EVENTS_ENABLED = Boolean.parseBoolean(System.getProperty("events.enabled", "true"));
+    public static final int EVENTS_BUFFER_SIZE = Integer.getInteger("events.bufferSize", 256);
+    public static final String EVENTS_DIR = System.getProperty("events.dir", "build/reports/events");
+    public static final boolean EVENTS_DUMP_ON_FINISH = Boolean.parseBoolean(System.getProperty("events.dumpOnFinish", "false"));
+
+    // Data-driven tests: data files are read through memory-mapped windows, data.partition=k-of-n runs every n-th selected row
+    public static final String DATA_DIR = System.getProperty("data.dir", "src/test/resources/data");
+    public static final int DATA_WINDOW_MB = Integer.getInteger("data.windowMb", 16);
+    public static final String DATA_PARTITION = System.getProperty("data.partition", "all");
+
+    // Session store: authenticated cookies and storage captured after a UI login and restored in later tests
+    public static final boolean SESSION_STORE_ENABLED = Boolean.parseBoolean(System.getProperty("session.store.enabled", "true"));
+    public static final int SESSION_STORE_TTL_SECONDS = Integer.getInteger("session.store.ttlSeconds", 1800);
+
+    // Network client logging: bodies are logged at debug level, capped in size and for one in every N responses
+    public static final int NETWORK_LOG_MAX_BODY_BYTES = Integer.getInteger("network.log.maxBodyBytes", 2048);
+    public static final int NETWORK_LOG_SAMPLE_RATE = Integer.getInteger("network.log.sampleRate", 10);
+
+    // Network client concurrency: requests in flight per executeAll batch
+    public static final int NETWORK_MAX_CONCURRENCY = Integer.getInteger("network.maxConcurrency", 16);
+
+    // Network transport shared by every NetworkClient: connection pool, dispatcher, protocols and default timeouts
+    public static final int NETWORK_POOL_MAX_IDLE = Integer.getInteger("network.pool.maxIdle", 32);
+    public static final int NETWORK_POOL_KEEP_ALIVE_SECONDS = Integer.getInteger("network.pool.keepAliveSeconds", 300);
+    public static final int NETWORK_MAX_REQUESTS = Integer.getInteger("network.maxRequests", 64);
+    public static final int NETWORK_MAX_REQUESTS_PER_HOST = Integer.getInteger("network.maxRequestsPerHost", 16);
+    public static final boolean NETWORK_HTTP2_ENABLED = Boolean.parseBoolean(System.getProperty("network.http2", "true"));
+    public static final int NETWORK_TIMEOUT_SECONDS = Integer.getInteger("network.timeoutSeconds", 30);
+
+    // Load runner: requests in flight before new arrivals are dropped, how long to wait for them at the end, and where reports go
+    public static final int LOAD_MAX_IN_FLIGHT = Integer.getInteger("load.maxInFlight", 1000);
+    public static final int LOAD_DRAIN_TIMEOUT_SECONDS = Integer.getInteger("load.drainTimeoutSeconds", 60);
+    public static final String LOAD_REPORT_DIR = System.getProperty("load.report.dir", "build/reports/load");
 }
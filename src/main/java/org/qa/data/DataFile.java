@@ -0,0 +1,35 @@
+package org.qa.data;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Data file of a test that uses the dataFile or dataFileParallel provider of {@link DataProviders}.
+ * Every row is bound to the type of the single parameter of the test method, e.g.
+ * <pre>
+ * &#64;DataFile(value = "users.csv", filter = "country=DE", sample = 0.1)
+ * &#64;Test(dataProvider = "dataFile", dataProviderClass = DataProviders.class)
+ * public void login(User user) { ... }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface DataFile {
+
+    /** CSV with a header row, or JSON Lines (.jsonl, .ndjson), relative to {@link org.qa.common.Config#DATA_DIR} or the classpath */
+    String value();
+
+    /** Conditions on raw row fields, "field=value" or "field!=value", all of them have to match */
+    String[] filter() default {};
+
+    /** Share of the rows to run, picked by row number so the same rows are picked on every run */
+    double sample() default 1.0;
+
+    /** Seed of the sample, change it to run a different sample */
+    long seed() default 0;
+
+    /** Maximum number of rows over all partitions, 0 for all of them */
+    long limit() default 0;
+}
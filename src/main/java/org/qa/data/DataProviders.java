@@ -0,0 +1,63 @@
+package org.qa.data;
+
+import org.qa.common.Config;
+import org.testng.annotations.DataProvider;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+
+/**
+ * TestNG data providers that stream the {@link DataFile} of the test method, one row per invocation.
+ * Rows are read lazily, so TestNG starts the first invocation before the file is read to the end
+ */
+public class DataProviders {
+
+    private DataProviders() {}
+
+    @DataProvider(name = "dataFile")
+    public static Iterator<Object[]> dataFile(Method method) {
+        return rows(method).toDataProvider();
+    }
+
+    /**
+     * Rows are handed out to the data provider threads one at a time, so no row runs twice
+     */
+    @DataProvider(name = "dataFileParallel", parallel = true)
+    public static Iterator<Object[]> dataFileParallel(Method method) {
+        return rows(method).toDataProvider();
+    }
+
+    /**
+     * This method builds the rows of a test method from its {@link DataFile}, partitioned by {@link Config#DATA_PARTITION}
+     * @param method test method with one parameter, the type rows are bound to
+     * @return DataRows
+     */
+    public static DataRows<Object> rows(Method method) {
+        DataFile dataFile = method.getAnnotation(DataFile.class);
+        if (dataFile == null) {
+            throw new IllegalStateException("[DataProviders] " + method.getName() + " has no @DataFile");
+        }
+        if (method.getParameterCount() != 1) {
+            throw new IllegalStateException("[DataProviders] " + method.getName() + " needs exactly one parameter to bind the rows of " + dataFile.value() + " to");
+        }
+        DataRows<Object> rows = DataRows.of(DataRows.resolve(dataFile.value()), method.getGenericParameterTypes()[0]);
+        for (String condition : dataFile.filter()) {
+            int equals = condition.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("[DataProviders] Filter has to be field=value or field!=value: " + condition);
+            }
+            if (condition.charAt(equals - 1) == '!') {
+                rows.whereNot(condition.substring(0, equals - 1).trim(), condition.substring(equals + 1).trim());
+            } else {
+                rows.where(condition.substring(0, equals).trim(), condition.substring(equals + 1).trim());
+            }
+        }
+        if (dataFile.sample() < 1) {
+            rows.sample(dataFile.sample(), dataFile.seed());
+        }
+        if (dataFile.limit() > 0) {
+            rows.limit(dataFile.limit());
+        }
+        return rows.partition(Config.DATA_PARTITION);
+    }
+}
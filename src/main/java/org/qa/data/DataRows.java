@@ -0,0 +1,396 @@
+package org.qa.data;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.qa.common.Config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Rows of a CSV or JSON Lines file, read lazily through {@link MappedLines} and bound to a type with Jackson.
+ * Rows go through the raw filters ({@link #where}), the sample, the typed filter, the limit and the partition in
+ * that order, and only rows of this partition are bound, so a test set of any size never sits on the heap.
+ * Configure before iterating, every iterator reads the file again from the start
+ */
+@Slf4j
+public class DataRows<T> implements Iterable<T> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public enum Format { CSV, JSONL }
+
+    private final Path file;
+    private final Format format;
+    private final JavaType type;
+    private final ObjectReader reader;
+    private final List<Predicate<JsonNode>> rowFilters = new ArrayList<>();
+    @Nullable
+    private Predicate<? super T> filter;
+    private double sampleRate = 1;
+    private long seed;
+    private long limit = Long.MAX_VALUE;
+    private int partitionIndex = 0;
+    private int partitionCount = 1;
+
+    private DataRows(Path file, Format format, JavaType type) {
+        this.file = file;
+        this.format = format;
+        this.type = type;
+        this.reader = MAPPER.readerFor(type);
+    }
+
+    public static <T> DataRows<T> csv(Path file, Class<T> type) {
+        return new DataRows<>(file, Format.CSV, MAPPER.constructType(type));
+    }
+
+    public static <T> DataRows<T> jsonl(Path file, Class<T> type) {
+        return new DataRows<>(file, Format.JSONL, MAPPER.constructType(type));
+    }
+
+    /**
+     * Rows bound to a generic type, e.g. the parameter type of a test method, in the format of the file extension
+     * @param file .csv, .jsonl or .ndjson file
+     * @param type type to bind every row to, JsonNode and Map keep the raw fields
+     * @return DataRows
+     */
+    public static DataRows<Object> of(Path file, Type type) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        Format format = name.endsWith(".csv") ? Format.CSV : name.endsWith(".jsonl") || name.endsWith(".ndjson") ? Format.JSONL : null;
+        if (format == null) {
+            throw new IllegalArgumentException("[DataRows] Unknown data file format, expected .csv, .jsonl or .ndjson: " + file);
+        }
+        return new DataRows<>(file, format, MAPPER.constructType(type));
+    }
+
+    /**
+     * This method finds a data file in {@link Config#DATA_DIR}, or on the classpath when it is not there
+     * @param name file name or relative path
+     * @return path of the file
+     */
+    public static Path resolve(String name) {
+        Path file = Paths.get(Config.DATA_DIR).resolve(name);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        URL resource = DataRows.class.getClassLoader().getResource(name);
+        if (resource != null && "file".equals(resource.getProtocol())) {
+            try {
+                return Paths.get(resource.toURI());
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException("[DataRows] Invalid data file location " + resource, e);
+            }
+        }
+        throw new IllegalArgumentException("[DataRows] Data file " + name + " not found in " + Config.DATA_DIR + " or on the classpath");
+    }
+
+    /**
+     * Keep rows whose raw field has the value, checked before binding
+     */
+    public DataRows<T> where(String field, String value) {
+        rowFilters.add(row -> value.equals(row.path(field).asText(null)));
+        return this;
+    }
+
+    /**
+     * Keep rows whose raw field does not have the value, checked before binding
+     */
+    public DataRows<T> whereNot(String field, String value) {
+        rowFilters.add(row -> !value.equals(row.path(field).asText(null)));
+        return this;
+    }
+
+    /**
+     * Keep rows whose bound value matches, every row that gets this far is bound
+     */
+    public DataRows<T> filter(Predicate<? super T> filter) {
+        Predicate<? super T> previous = this.filter;
+        this.filter = previous == null ? filter : value -> previous.test(value) && filter.test(value);
+        return this;
+    }
+
+    /**
+     * This method keeps a share of the rows. Whether a row is kept depends only on its row number and the seed,
+     * so the sample is the same on every run and in every partition
+     * @param rate share of rows between 0 and 1
+     * @param seed seed of the sample
+     * @return this
+     */
+    public DataRows<T> sample(double rate, long seed) {
+        if (rate <= 0 || rate > 1) {
+            throw new IllegalArgumentException("[DataRows] Sample rate has to be in (0, 1]: " + rate);
+        }
+        this.sampleRate = rate;
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @param limit maximum number of rows over all partitions
+     * @return this
+     */
+    public DataRows<T> limit(long limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * This method keeps every count-th selected row starting at index, so parallel runs of the same data set
+     * each get their own rows and together get all of them
+     * @param index partition of this run, from 0
+     * @param count number of partitions
+     * @return this
+     */
+    public DataRows<T> partition(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("[DataRows] Invalid partition " + index + " of " + count);
+        }
+        this.partitionIndex = index;
+        this.partitionCount = count;
+        return this;
+    }
+
+    /**
+     * @param partition "k-of-n" with k from 1, or "all"
+     * @return this
+     * @see Config#DATA_PARTITION
+     */
+    public DataRows<T> partition(String partition) {
+        if (partition.equals("all")) {
+            return partition(0, 1);
+        }
+        String[] parts = partition.split("-of-");
+        try {
+            if (parts.length != 2) {
+                throw new NumberFormatException(partition);
+            }
+            return partition(Integer.parseInt(parts[0].trim()) - 1, Integer.parseInt(parts[1].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("[DataRows] Partition has to be k-of-n or all: " + partition, e);
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        try {
+            return new RowIterator();
+        } catch (IOException e) {
+            throw new UncheckedIOException("[DataRows] Could not open " + file, e);
+        }
+    }
+
+    /**
+     * This method returns the rows as a TestNG data provider, one row per invocation. The iterator is synchronized
+     * so parallel data providers can pull from it
+     * @return Iterator of single-parameter arrays
+     */
+    public Iterator<Object[]> toDataProvider() {
+        Iterator<T> rows = iterator();
+        return new Iterator<>() {
+            @Override
+            public synchronized boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public synchronized Object[] next() {
+                return new Object[]{rows.next()};
+            }
+        };
+    }
+
+    private boolean sampled(long rowNumber) {
+        long hash = seed + rowNumber * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return (hash >>> 11) * 0x1.0p-53 < sampleRate;
+    }
+
+    private class RowIterator implements Iterator<T>, Closeable {
+        private final MappedLines lines;
+        @Nullable
+        private String[] header;
+        private long rowNumber;
+        private long selected;
+        @Nullable
+        private T next;
+        private boolean done;
+
+        private RowIterator() throws IOException {
+            lines = new MappedLines(file, Config.DATA_WINDOW_MB * 1024L * 1024L);
+            if (format == Format.CSV) {
+                List<String> fields = nextCsvRecord();
+                header = fields == null ? new String[0] : fields.stream().map(String::trim).toArray(String[]::new);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T row = next;
+            next = null;
+            return row;
+        }
+
+        @Nullable
+        private T advance() {
+            try {
+                ObjectNode next;
+                while (selected < limit && (next = nextRow()) != null) {
+                    ObjectNode row = next;
+                    long number = ++rowNumber;
+                    if (!rowFilters.stream().allMatch(rowFilter -> rowFilter.test(row)) || (sampleRate < 1 && !sampled(number))) {
+                        continue;
+                    }
+                    T value = filter == null ? null : bind(row, number);
+                    if (value != null && !filter.test(value)) {
+                        continue;
+                    }
+                    if (selected++ % partitionCount == partitionIndex) {
+                        return value != null ? value : bind(row, number);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("[DataRows] Could not read " + file, e);
+            }
+            close();
+            return null;
+        }
+
+        private T bind(ObjectNode row, long number) {
+            try {
+                return reader.readValue(row);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("[DataRows] Row " + number + " of " + file.getFileName() + " could not be mapped to "
+                        + type.getRawClass().getSimpleName() + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Nullable
+        private ObjectNode nextRow() throws IOException {
+            if (format == Format.JSONL) {
+                String line;
+                while ((line = lines.next()) != null) {
+                    if (!line.isBlank()) {
+                        JsonNode node = MAPPER.readTree(line);
+                        if (!node.isObject()) {
+                            throw new IllegalArgumentException("[DataRows] Row " + (rowNumber + 1) + " of " + file.getFileName() + " is not a JSON object");
+                        }
+                        return (ObjectNode) node;
+                    }
+                }
+                return null;
+            }
+            List<String> fields = nextCsvRecord();
+            if (fields == null) {
+                return null;
+            }
+            ObjectNode row = MAPPER.createObjectNode();
+            for (int i = 0; i < header.length && i < fields.size(); i++) {
+                row.put(header[i], fields.get(i));
+            }
+            return row;
+        }
+
+        /**
+         * RFC 4180 record: fields in double quotes may hold commas, doubled quotes and line breaks
+         */
+        @Nullable
+        private List<String> nextCsvRecord() throws IOException {
+            String line = lines.next();
+            while (line != null && line.isEmpty()) {
+                line = lines.next();
+            }
+            if (line == null) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>(header == null ? 16 : header.length);
+            if (line.indexOf('"') < 0) {
+                int start = 0;
+                for (int comma = line.indexOf(','); comma >= 0; comma = line.indexOf(',', start)) {
+                    fields.add(line.substring(start, comma));
+                    start = comma + 1;
+                }
+                fields.add(line.substring(start));
+                return fields;
+            }
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                    line = lines.next();
+                    if (line == null) {
+                        throw new IllegalArgumentException("[DataRows] Unclosed quote in the last row of " + file.getFileName());
+                    }
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            done = true;
+            try {
+                lines.close();
+            } catch (IOException e) {
+                log.debug("[DataRows] Could not close {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
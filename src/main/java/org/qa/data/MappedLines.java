@@ -0,0 +1,88 @@
+package org.qa.data;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Lines of a UTF-8 file read through a memory-mapped window that slides over the file, so only the window and the
+ * current line are on the heap however large the file is. A line that crosses the end of a window is continued in
+ * the next one
+ */
+final class MappedLines implements Closeable {
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private byte[] line = new byte[256];
+
+    MappedLines(Path file, long windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        if (size >= 3) {
+            map(0);
+            if (window.get(0) == (byte) 0xEF && window.get(1) == (byte) 0xBB && window.get(2) == (byte) 0xBF) {
+                position = 3; // UTF-8 byte order mark
+            }
+        }
+    }
+
+    /**
+     * @return the next line without its line terminator, or null at the end of the file
+     */
+    @Nullable
+    String next() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        int length = 0;
+        while (position < size) {
+            if (window == null || position >= windowStart + window.limit()) {
+                map(position);
+            }
+            int offset = (int) (position - windowStart);
+            int limit = window.limit();
+            int end = offset;
+            while (end < limit && window.get(end) != '\n') {
+                end++;
+            }
+            int chunk = end - offset;
+            if (length + chunk > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + chunk));
+            }
+            window.get(offset, line, length, chunk);
+            length += chunk;
+            position += chunk;
+            if (end < limit) {
+                position++; // the line terminator
+                break;
+            }
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void map(long start) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+        windowStart = start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -8,7 +8,11 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface Browser {
-    String value() default "chrome";
+    /** Browsers to run the test on, a test with several browsers is invoked once per browser, in parallel */
+    String[] value() default {"chrome"};
+
+    /** Names of {@link BrowserProfile}s to apply, combined with the -Dbrowser.profiles system property */
+    String[] profiles() default {};
 
 }
 
@@ -0,0 +1,169 @@
+package org.qa.driverfactory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.remote.CapabilityType;
+import org.qa.common.Config;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Named browser set-ups that trade fidelity for speed. Profiles compose, they are applied in order on top of
+ * the options {@link WebDriverFactory} builds for the browser, and each maps to the matching Chrome/Edge or
+ * Firefox options. Profiles a browser has no equivalent for are skipped with a warning.
+ * <ul>
+ *     <li>default: maximised window, always applied first, headless and mobile-small replace it with their own window size</li>
+ *     <li>headless: no visible window, 1920x1080 viewport</li>
+ *     <li>lean: no GPU, extensions or images</li>
+ *     <li>headless-lean: headless and lean</li>
+ *     <li>eager-load: navigation returns once the DOM is ready, without waiting for images and stylesheets</li>
+ *     <li>mobile-small: 414x896 viewport</li>
+ * </ul>
+ */
+@Slf4j
+public enum BrowserProfile {
+    DEFAULT("default"),
+    HEADLESS("headless"),
+    LEAN("lean"),
+    HEADLESS_LEAN("headless-lean", HEADLESS, LEAN),
+    EAGER_LOAD("eager-load"),
+    MOBILE_SMALL("mobile-small");
+
+    private static final int MOBILE_WIDTH = 414;
+    private static final int MOBILE_HEIGHT = 896;
+
+    private final String profileName;
+    private final BrowserProfile[] parts;
+
+    BrowserProfile(String profileName, BrowserProfile... parts) {
+        this.profileName = profileName;
+        this.parts = parts;
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+
+    /**
+     * This method looks a profile up by its name, e.g. {@code headless-lean}
+     * @param name profile name
+     * @return BrowserProfile
+     */
+    public static BrowserProfile named(String name) {
+        String trimmed = name.trim().toLowerCase(Locale.ROOT);
+        for (BrowserProfile profile : values()) {
+            if (profile.profileName.equals(trimmed)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown browser profile: " + name);
+    }
+
+    /**
+     * This method combines {@link #DEFAULT} with the profiles requested by a test and the ones in
+     * {@link Config#BROWSER_PROFILES}. The maximised window of the default is dropped when a later profile sizes the window
+     * @param names profile names, e.g. from {@link Browser#profiles()}
+     * @return profiles in the order they are applied, composite profiles expanded and without duplicates
+     */
+    public static List<BrowserProfile> resolve(String... names) {
+        Set<BrowserProfile> profiles = new LinkedHashSet<>();
+        profiles.add(DEFAULT);
+        for (String name : names) {
+            named(name).addTo(profiles);
+        }
+        for (String name : Config.BROWSER_PROFILES.split(",")) {
+            if (!name.isBlank()) {
+                named(name).addTo(profiles);
+            }
+        }
+        if (profiles.stream().anyMatch(BrowserProfile::sizesWindow)) {
+            profiles.remove(DEFAULT);
+        }
+        return List.copyOf(profiles);
+    }
+
+    private boolean sizesWindow() {
+        return this == HEADLESS || this == MOBILE_SMALL;
+    }
+
+    private void addTo(Set<BrowserProfile> profiles) {
+        if (parts.length == 0) {
+            profiles.add(this);
+        }
+        Arrays.stream(parts).forEach(part -> part.addTo(profiles));
+    }
+
+    /**
+     * This method applies the profile to the options of any supported browser
+     * @param options ChromeOptions, EdgeOptions, FirefoxOptions or SafariOptions
+     */
+    public void apply(MutableCapabilities options) {
+        if (parts.length > 0) {
+            Arrays.stream(parts).forEach(part -> part.apply(options));
+        } else if (this == EAGER_LOAD) {
+            options.setCapability(CapabilityType.PAGE_LOAD_STRATEGY, PageLoadStrategy.EAGER);
+        } else if (options instanceof ChromiumOptions) {
+            applyChromium((ChromiumOptions<?>) options);
+        } else if (options instanceof FirefoxOptions) {
+            applyFirefox((FirefoxOptions) options);
+        } else if (this != DEFAULT) {
+            log.warn("[BrowserProfile] Profile {} is not supported for {}, it is ignored", profileName, options.getBrowserName());
+        }
+    }
+
+    private void applyChromium(ChromiumOptions<?> options) {
+        switch (this) {
+            case DEFAULT:
+                options.addArguments("--start-maximized");
+                break;
+            case HEADLESS:
+                options.addArguments("--headless=new", "--window-size=1920,1080");
+                break;
+            case LEAN:
+                options.addArguments("--disable-gpu", "--disable-extensions", "--disable-dev-shm-usage", "--blink-settings=imagesEnabled=false");
+                break;
+            case MOBILE_SMALL:
+                options.addArguments("--window-size=" + MOBILE_WIDTH + "," + MOBILE_HEIGHT);
+                options.setExperimentalOption("mobileEmulation",
+                        Map.of("deviceMetrics", Map.of("width", MOBILE_WIDTH, "height", MOBILE_HEIGHT, "pixelRatio", 1.0)));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void applyFirefox(FirefoxOptions options) {
+        switch (this) {
+            case DEFAULT:
+                options.addArguments("--start-maximized");
+                break;
+            case HEADLESS:
+                options.addArguments("-headless", "--width=1920", "--height=1080");
+                break;
+            case LEAN:
+                options.addPreference("permissions.default.image", 2);
+                options.addPreference("layers.acceleration.disabled", true);
+                options.addPreference("extensions.enabledScopes", 0);
+                break;
+            case MOBILE_SMALL:
+                options.addArguments("--width=" + MOBILE_WIDTH, "--height=" + MOBILE_HEIGHT);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return profileName;
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.qa.driverfactory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.qa.common.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of every browser session the framework starts, whichever thread or pool holds it, so all of
+ * them can be quit at the end of the suite, and bounds how many sessions of one browser type tests may use
+ * at the same time
+ */
+@Slf4j
+public class DriverLifecycle {
+
+    private static final DriverLifecycle INSTANCE = new DriverLifecycle(Config.DRIVER_MAX_SESSIONS_PER_BROWSER);
+
+    private static final long QUIT_TIMEOUT_SECONDS = 60;
+
+    private final int maxSessionsPerBrowser;
+    private final Set<WebDriver> sessions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Semaphore> slots = new ConcurrentHashMap<>();
+
+    DriverLifecycle(int maxSessionsPerBrowser) {
+        this.maxSessionsPerBrowser = maxSessionsPerBrowser;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::quitAll, "driver-lifecycle-shutdown"));
+    }
+
+    public static DriverLifecycle getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Wait for a free slot for the browser type, at most {@link Config#DRIVER_MAX_SESSIONS_PER_BROWSER}
+     * sessions of one type are in use at the same time
+     * @param browser Type of browser
+     */
+    void acquire(String browser) {
+        try {
+            if (!slots(browser).tryAcquire(Config.DRIVER_ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new TimeoutException("[DriverLifecycle] No " + browser + " session became available within "
+                        + Config.DRIVER_ACQUIRE_TIMEOUT_SECONDS + " seconds, " + maxSessionsPerBrowser + " are in use");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[DriverLifecycle] Interrupted while waiting for a " + browser + " session", e);
+        }
+    }
+
+    /**
+     * Give back the slot taken by {@link #acquire(String)}
+     * @param browser Type of browser
+     */
+    void release(String browser) {
+        Semaphore semaphore = slots.get(browser.toLowerCase(Locale.ROOT));
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+
+    void register(WebDriver driver) {
+        sessions.add(driver);
+    }
+
+    /**
+     * Quit a session and stop tracking it, errors are logged and not thrown
+     * @param driver WebDriver
+     */
+    void quit(WebDriver driver) {
+        sessions.remove(driver);
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            log.warn("[DriverLifecycle] Error while quitting session: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of sessions that are started and not quit yet
+     */
+    public int getOpenSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Quit every session that is still open, in parallel, and return once all of them are gone or the
+     * quit timeout has passed. Slots are reset so the lifecycle can be used again, e.g. by the next suite
+     */
+    public void quitAll() {
+        List<WebDriver> open = new ArrayList<>(sessions);
+        slots.clear();
+        if (open.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(open.size(), 8));
+        open.forEach(driver -> executor.execute(() -> quit(driver)));
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(QUIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("[DriverLifecycle] {} sessions did not quit within {} seconds", sessions.size(), QUIT_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("[DriverLifecycle] Quit {} open sessions", open.size() - sessions.size());
+    }
+
+    private Semaphore slots(String browser) {
+        return slots.computeIfAbsent(browser.toLowerCase(Locale.ROOT), b -> new Semaphore(maxSessionsPerBrowser, true));
+    }
+}
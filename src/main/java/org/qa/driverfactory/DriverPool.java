@@ -0,0 +1,215 @@
+package org.qa.driverfactory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.qa.common.Config;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of live browser sessions keyed by browser type and options.
+ * Tests borrow a session, and on release it is reset (cookies, storage, extra windows, navigation)
+ * and kept for the next test instead of being quit, which avoids a browser cold start per test
+ */
+@Slf4j
+public class DriverPool {
+
+    private static final DriverPool INSTANCE = new DriverPool(Config.DRIVER_POOL_MAX_IDLE_PER_KEY, Config.DRIVER_POOL_MAX_REUSE);
+
+    private static final String CLEAR_STORAGE_SCRIPT =
+            "try { window.localStorage.clear(); } catch (e) {}" +
+            "try { window.sessionStorage.clear(); } catch (e) {}";
+
+    private final int maxIdlePerKey;
+    private final int maxReuse;
+    private final Map<String, BlockingDeque<PooledSession>> idleSessions = new ConcurrentHashMap<>();
+    private final Map<WebDriver, PooledSession> leasedSessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    DriverPool(int maxIdlePerKey, int maxReuse) {
+        this.maxIdlePerKey = maxIdlePerKey;
+        this.maxReuse = maxReuse;
+    }
+
+    public static DriverPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Builds the pool key for a browser and its options, sessions are only shared between identical keys
+     * @param browser Type of browser
+     * @param options Options the session is started with
+     * @return String
+     */
+    public static String keyFor(String browser, Capabilities options) {
+        return browser.toLowerCase() + ":" + new TreeMap<>(options.asMap());
+    }
+
+    /**
+     * Borrow a healthy idle session for the key, or start a new one when none is available
+     * @param key Pool key, see {@link #keyFor(String, Capabilities)}
+     * @param factory Starts a new session on a pool miss
+     * @return WebDriver
+     */
+    public WebDriver borrow(String key, Supplier<WebDriver> factory) {
+        BlockingDeque<PooledSession> idle = idleSessions.computeIfAbsent(key, k -> new LinkedBlockingDeque<>(maxIdlePerKey));
+        PooledSession session;
+        while ((session = idle.pollFirst()) != null) {
+            if (isHealthy(session.driver)) {
+                hits.incrementAndGet();
+                session.uses++;
+                leasedSessions.put(session.driver, session);
+                return session.driver;
+            }
+            log.warn("[DriverPool] Discarding unhealthy session for {}", key);
+            discard(session);
+        }
+
+        misses.incrementAndGet();
+        session = new PooledSession(key, factory.get());
+        leasedSessions.put(session.driver, session);
+        return session.driver;
+    }
+
+    /**
+     * Return a borrowed session, it is reset and kept idle unless it is worn out or the pool is full
+     * @param driver WebDriver previously returned by {@link #borrow(String, Supplier)}
+     */
+    public void release(WebDriver driver) {
+        PooledSession session = leasedSessions.remove(driver);
+        if (session == null) {
+            DriverLifecycle.getInstance().quit(driver);
+            return;
+        }
+        if (session.uses >= maxReuse || !reset(session.driver)) {
+            discard(session);
+            return;
+        }
+        if (idleSessions.computeIfAbsent(session.key, k -> new LinkedBlockingDeque<>(maxIdlePerKey)).offerFirst(session)) {
+            recycled.incrementAndGet();
+        } else {
+            discard(session);
+        }
+    }
+
+    /**
+     * Quit a borrowed session without returning it to the pool
+     * @param driver WebDriver previously returned by {@link #borrow(String, Supplier)}
+     */
+    public void invalidate(WebDriver driver) {
+        PooledSession session = leasedSessions.remove(driver);
+        if (session != null) {
+            discard(session);
+        } else {
+            quietlyQuit(driver);
+        }
+    }
+
+    /**
+     * Quit every idle session, leased sessions are quit when they are released
+     */
+    public void shutdown() {
+        idleSessions.values().forEach(idle -> {
+            PooledSession session;
+            while ((session = idle.pollFirst()) != null) {
+                quietlyQuit(session.driver);
+            }
+        });
+        log.info("[DriverPool] {}", describe());
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getRecycled() {
+        return recycled.get();
+    }
+
+    public long getEvicted() {
+        return evicted.get();
+    }
+
+    public String describe() {
+        return String.format("hits=%d misses=%d recycled=%d evicted=%d leased=%d",
+                getHits(), getMisses(), getRecycled(), getEvicted(), leasedSessions.size());
+    }
+
+    private boolean isHealthy(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Bring the session back to a blank state: single window, no cookies, no storage, about:blank
+     * @param driver WebDriver
+     * @return true when the session could be reset
+     */
+    private boolean reset(WebDriver driver) {
+        try {
+            Set<String> handles = driver.getWindowHandles();
+            String mainHandle = handles.iterator().next();
+            for (String handle : handles) {
+                if (!handle.equals(mainHandle)) {
+                    driver.switchTo().window(handle).close();
+                }
+            }
+            driver.switchTo().window(mainHandle);
+
+            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_SCRIPT);
+            if (driver instanceof ChromiumDriver) {
+                // Clears cookies of every domain in one call, deleteAllCookies only covers the current one
+                ((ChromiumDriver) driver).executeCdpCommand("Network.clearBrowserCookies", Map.of());
+            } else {
+                driver.manage().deleteAllCookies();
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            log.warn("[DriverPool] Could not reset session, it will be discarded: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void discard(PooledSession session) {
+        evicted.incrementAndGet();
+        quietlyQuit(session.driver);
+    }
+
+    private void quietlyQuit(WebDriver driver) {
+        DriverLifecycle.getInstance().quit(driver);
+    }
+
+    private static class PooledSession {
+        private final String key;
+        private final WebDriver driver;
+        private int uses = 1;
+
+        private PooledSession(String key, WebDriver driver) {
+            this.key = key;
+            this.driver = driver;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.qa.driverfactory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeDriverService;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.net.PortProber;
+import org.openqa.selenium.remote.service.DriverFinder;
+import org.openqa.selenium.remote.service.DriverService;
+import org.qa.common.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Starts browser sessions against driver binaries resolved once and cached on disk,
+ * optionally through one long-lived driver service per browser type shared by every session.
+ * Only chromedriver and msedgedriver are shared, geckodriver serves a single session per process, so every
+ * Firefox session keeps its own service.
+ * Selenium Manager only runs when a binary is not in the cache yet (or no longer exists)
+ */
+@Slf4j
+class DriverServices {
+
+    private static final Duration SERVICE_START_TIMEOUT = Duration.ofSeconds(20);
+    private static final Map<String, DriverService> sharedServices = new ConcurrentHashMap<>();
+    private static final Properties binaryCache = loadBinaryCache();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(DriverServices::stopSharedServices, "driver-services-shutdown"));
+    }
+
+    private DriverServices() {}
+
+    /**
+     * Start a chromium or firefox session for the given options
+     * @param options Options built by the factory
+     * @return WebDriver
+     */
+    static WebDriver startSession(MutableCapabilities options) {
+        if (options instanceof EdgeOptions) {
+            EdgeOptions edgeOptions = (EdgeOptions) options;
+            String driverPath = resolve("edge", EdgeDriverService.createDefaultService(), edgeOptions, edgeOptions::setBinary);
+            return new EdgeDriver((EdgeDriverService) service("edge", driverPath), edgeOptions);
+        }
+        if (options instanceof ChromeOptions) {
+            ChromeOptions chromeOptions = (ChromeOptions) options;
+            String driverPath = resolve("chrome", ChromeDriverService.createDefaultService(), chromeOptions, chromeOptions::setBinary);
+            return new ChromeDriver((ChromeDriverService) service("chrome", driverPath), chromeOptions);
+        }
+        FirefoxOptions firefoxOptions = (FirefoxOptions) options;
+        String driverPath = resolve("firefox", GeckoDriverService.createDefaultService(), firefoxOptions, firefoxOptions::setBinary);
+        return new FirefoxDriver((GeckoDriverService) service("firefox", driverPath), firefoxOptions);
+    }
+
+    /**
+     * Returns the shared service of the browser, or a dedicated one when sharing is disabled or the browser is Firefox.
+     * A shared service whose driver process died is replaced by a new one
+     */
+    private static DriverService service(String browser, String driverPath) {
+        if (!Config.DRIVER_SERVICE_SHARED || browser.equals("firefox")) {
+            return newService(browser, driverPath, false);
+        }
+        return sharedServices.compute(browser, (b, running) -> {
+            if (running != null && running.isRunning()) {
+                return running;
+            }
+            if (running != null) {
+                log.warn("[DriverServices] Shared {} driver service at {} is no longer running, starting a new one", b, running.getUrl());
+                ((SharedService) running).shutdown();
+            }
+            DriverService service = newService(b, driverPath, true);
+            try {
+                service.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start shared driver service for " + b, e);
+            }
+            log.info("[DriverServices] Started shared {} driver service at {}", b, service.getUrl());
+            return service;
+        });
+    }
+
+    private static DriverService newService(String browser, String driverPath, boolean shared) {
+        File executable = new File(driverPath);
+        int port = PortProber.findFreePort();
+        List<String> args = List.of("--port=" + port);
+        try {
+            switch (browser) {
+                case "chrome":
+                    return shared ? new SharedChromeDriverService(executable, port, args) : new ChromeDriverService(executable, port, SERVICE_START_TIMEOUT, args, Map.of());
+                case "edge":
+                    return shared ? new SharedEdgeDriverService(executable, port, args) : new EdgeDriverService(executable, port, SERVICE_START_TIMEOUT, args, Map.of());
+                case "firefox":
+                    return new GeckoDriverService(executable, port, SERVICE_START_TIMEOUT, args, Map.of());
+                default:
+                    throw new IllegalArgumentException("Unsupported browser: " + browser);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create driver service for " + browser, e);
+        }
+    }
+
+    /**
+     * Returns the driver binary for the browser and points the options at the cached browser binary.
+     * Selenium Manager is only consulted on a cache miss and the result is written back to disk
+     */
+    private static synchronized String resolve(String browser, DriverService defaultService, MutableCapabilities options, BinarySetter binarySetter) {
+        String driverKey = browser + ".driver";
+        String browserKey = browser + ".browser";
+        String driverPath = binaryCache.getProperty(driverKey);
+        String browserPath = binaryCache.getProperty(browserKey);
+
+        if (driverPath == null || !new File(driverPath).canExecute() || (browserPath != null && !new File(browserPath).exists())) {
+            DriverFinder finder = new DriverFinder(defaultService, options);
+            driverPath = finder.getDriverPath();
+            browserPath = finder.hasBrowserPath() ? finder.getBrowserPath() : null;
+            binaryCache.setProperty(driverKey, driverPath);
+            if (browserPath != null) {
+                binaryCache.setProperty(browserKey, browserPath);
+            } else {
+                binaryCache.remove(browserKey);
+            }
+            storeBinaryCache();
+            log.info("[DriverServices] Resolved {} driver at {}", browser, driverPath);
+        }
+
+        if (browserPath != null) {
+            binarySetter.setBinary(browserPath);
+        }
+        return driverPath;
+    }
+
+    private static Properties loadBinaryCache() {
+        Properties properties = new Properties();
+        Path cacheFile = Path.of(Config.DRIVER_BINARY_CACHE);
+        if (Files.isRegularFile(cacheFile)) {
+            try (InputStream in = Files.newInputStream(cacheFile)) {
+                properties.load(in);
+            } catch (IOException e) {
+                log.warn("[DriverServices] Ignoring unreadable binary cache {}: {}", cacheFile, e.getMessage());
+            }
+        }
+        return properties;
+    }
+
+    private static void storeBinaryCache() {
+        Path cacheFile = Path.of(Config.DRIVER_BINARY_CACHE);
+        try {
+            if (cacheFile.getParent() != null) {
+                Files.createDirectories(cacheFile.getParent());
+            }
+            try (OutputStream out = Files.newOutputStream(cacheFile)) {
+                binaryCache.store(out, "Resolved driver and browser binaries");
+            }
+        } catch (IOException e) {
+            log.warn("[DriverServices] Could not write binary cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    private static void stopSharedServices() {
+        sharedServices.values().forEach(service -> ((SharedService) service).shutdown());
+        sharedServices.clear();
+    }
+
+    private interface BinarySetter {
+        void setBinary(String path);
+    }
+
+    /**
+     * Shared services ignore the stop issued by each session's quit and only stop at JVM exit
+     */
+    private interface SharedService {
+        void shutdown();
+    }
+
+    private static class SharedChromeDriverService extends ChromeDriverService implements SharedService {
+        SharedChromeDriverService(File executable, int port, List<String> args) throws IOException {
+            super(executable, port, SERVICE_START_TIMEOUT, args, Map.of());
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void shutdown() {
+            super.stop();
+        }
+    }
+
+    private static class SharedEdgeDriverService extends EdgeDriverService implements SharedService {
+        SharedEdgeDriverService(File executable, int port, List<String> args) throws IOException {
+            super(executable, port, SERVICE_START_TIMEOUT, args, Map.of());
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void shutdown() {
+            super.stop();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.qa.driverfactory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.ChromiumNetworkConditions;
+import org.openqa.selenium.chromium.HasNetworkConditions;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.NetworkInterceptor;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link NetworkProfile} applied to one browser session through CDP request interception.
+ * Blocked requests are answered with an empty 204 and stubbed requests with their local resource, so neither
+ * reaches the network. The bytes saved are an estimate based on the resource type, the real size of a request
+ * that never went out is not known
+ */
+@Slf4j
+public class NetworkInterception implements AutoCloseable {
+
+    private static volatile boolean unsupportedWarned;
+
+    private final NetworkProfile profile;
+    private final WebDriver driver;
+    @Nullable
+    private final NetworkInterceptor interceptor;
+
+    private final AtomicLong interceptedRequests = new AtomicLong();
+    private final AtomicLong blockedRequests = new AtomicLong();
+    private final AtomicLong stubbedRequests = new AtomicLong();
+    private final AtomicLong estimatedBytesSaved = new AtomicLong();
+
+    private NetworkInterception(WebDriver driver, NetworkProfile profile) {
+        this.driver = driver;
+        this.profile = profile;
+        this.interceptor = profile.intercepts() ? new NetworkInterceptor(driver, (Filter) next -> request -> {
+            HttpResponse answered = answerLocally(request);
+            return answered != null ? answered : next.execute(request);
+        }) : null;
+        if (profile.getThrottling() != null) {
+            ChromiumNetworkConditions conditions = new ChromiumNetworkConditions();
+            conditions.setLatency(profile.getThrottling().getLatency());
+            conditions.setDownloadThroughput(profile.getThrottling().getDownloadBytesPerSecond());
+            conditions.setUploadThroughput(profile.getThrottling().getUploadBytesPerSecond());
+            ((HasNetworkConditions) driver).setNetworkConditions(conditions);
+        }
+    }
+
+    /**
+     * This method applies the profile to the session
+     * @param driver WebDriver
+     * @param profile NetworkProfile
+     * @return the interception, or null when the profile changes nothing or the browser has no CDP support
+     */
+    @Nullable
+    static NetworkInterception start(WebDriver driver, NetworkProfile profile) {
+        if (!profile.intercepts() && profile.getThrottling() == null) {
+            return null;
+        }
+        if (!(driver instanceof HasDevTools) || (profile.getThrottling() != null && !(driver instanceof HasNetworkConditions))) {
+            if (!unsupportedWarned) {
+                unsupportedWarned = true;
+                log.warn("[NetworkInterception] Network profile '{}' needs a Chromium browser, {} runs without it", profile, driver.getClass().getSimpleName());
+            }
+            return null;
+        }
+        try {
+            return new NetworkInterception(driver, profile);
+        } catch (WebDriverException e) {
+            log.warn("[NetworkInterception] Could not apply network profile '{}': {}", profile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Requests are only passed on to {@code next} when they are neither stubbed nor blocked, since that sends them to the server
+     * @return the local answer, or null to let the request through
+     */
+    @Nullable
+    private HttpResponse answerLocally(HttpRequest request) {
+        interceptedRequests.incrementAndGet();
+        String url = request.getUri();
+        NetworkProfile.Stub stub = profile.stubFor(url);
+        if (stub != null) {
+            stubbedRequests.incrementAndGet();
+            byte[] content = stub.content();
+            return new HttpResponse().setStatus(200)
+                    .setHeader("Content-Type", stub.contentType())
+                    .setHeader("Access-Control-Allow-Origin", "*")
+                    .setContent(Contents.bytes(content));
+        }
+        NetworkProfile.ResourceType type = NetworkProfile.ResourceType.of(url);
+        if (profile.isBlocked(url, type)) {
+            blockedRequests.incrementAndGet();
+            estimatedBytesSaved.addAndGet(type != null ? type.getEstimatedBytes() : NetworkProfile.ESTIMATED_BYTES_OTHER);
+            return new HttpResponse().setStatus(204);
+        }
+        return null;
+    }
+
+    public NetworkProfile getProfile() {
+        return profile;
+    }
+
+    public long getInterceptedRequests() {
+        return interceptedRequests.get();
+    }
+
+    public long getBlockedRequests() {
+        return blockedRequests.get();
+    }
+
+    public long getStubbedRequests() {
+        return stubbedRequests.get();
+    }
+
+    /** Estimated from the resource type of each blocked request */
+    public long getEstimatedBytesSaved() {
+        return estimatedBytesSaved.get();
+    }
+
+    public String describe() {
+        return String.format("profile=%s intercepted=%d blocked=%d stubbed=%d estimatedBytesSaved=%d",
+                profile, getInterceptedRequests(), getBlockedRequests(), getStubbedRequests(), getEstimatedBytesSaved());
+    }
+
+    /**
+     * Stop intercepting and lift the throttling, so the session can be handed to a test with another profile
+     */
+    @Override
+    public void close() {
+        try {
+            if (interceptor != null) {
+                interceptor.close();
+            }
+            if (profile.getThrottling() != null) {
+                ((HasNetworkConditions) driver).deleteNetworkConditions();
+            }
+        } catch (WebDriverException e) {
+            log.warn("[NetworkInterception] Could not remove network profile '{}': {}", profile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package org.qa.driverfactory;
+
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Network conditions applied to a browser session: URL patterns and resource types that are blocked,
+ * URL patterns answered with a local stub, and optional throttling.
+ * Patterns are globs on the full URL where {@code *} matches anything, e.g. {@code *google-analytics.com*}.
+ * Profiles are immutable, every {@code with...}/{@code blocking...} method returns a copy
+ */
+@Getter
+public class NetworkProfile {
+
+    /**
+     * Resource types recognised from the extension of the request path, with the size a blocked response
+     * is assumed to have when estimating the bytes saved
+     */
+    public enum ResourceType {
+        IMAGE(40_000, "png", "jpg", "jpeg", "gif", "webp", "avif", "svg", "ico", "bmp"),
+        FONT(30_000, "woff", "woff2", "ttf", "otf", "eot"),
+        MEDIA(500_000, "mp4", "webm", "ogg", "mp3", "wav", "m4a", "mov"),
+        STYLESHEET(20_000, "css"),
+        SCRIPT(30_000, "js", "mjs");
+
+        private final long estimatedBytes;
+        private final Set<String> extensions;
+
+        ResourceType(long estimatedBytes, String... extensions) {
+            this.estimatedBytes = estimatedBytes;
+            this.extensions = Set.of(extensions);
+        }
+
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        @Nullable
+        static ResourceType of(String url) {
+            String path = url.split("[?#]")[0];
+            int dot = path.lastIndexOf('.');
+            if (dot < 0 || dot < path.lastIndexOf('/')) {
+                return null;
+            }
+            String extension = path.substring(dot + 1).toLowerCase(Locale.ROOT);
+            for (ResourceType type : values()) {
+                if (type.extensions.contains(extension)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Assumed size of a blocked request whose resource type is not known */
+    static final long ESTIMATED_BYTES_OTHER = 10_000;
+
+    private static final List<String> TRACKER_PATTERNS = List.of(
+            "*google-analytics.com*", "*googletagmanager.com*", "*doubleclick.net*", "*googlesyndication.com*",
+            "*facebook.net*", "*hotjar.com*", "*segment.io*", "*newrelic.com*", "*nr-data.net*", "*backtrace.io*");
+
+    private final String name;
+    private final List<String> blockedUrls;
+    private final Set<ResourceType> blockedResourceTypes;
+    @Getter(lombok.AccessLevel.NONE)
+    private final Map<String, Stub> stubs;
+    @Nullable
+    private final Throttling throttling;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final List<Pattern> blockedUrlPatterns;
+
+    private NetworkProfile(String name, List<String> blockedUrls, Set<ResourceType> blockedResourceTypes, Map<String, Stub> stubs, @Nullable Throttling throttling) {
+        this.name = name;
+        this.blockedUrls = List.copyOf(blockedUrls);
+        this.blockedResourceTypes = blockedResourceTypes.isEmpty() ? Set.of() : Collections.unmodifiableSet(EnumSet.copyOf(blockedResourceTypes));
+        this.stubs = Collections.unmodifiableMap(new LinkedHashMap<>(stubs));
+        this.throttling = throttling;
+        List<Pattern> patterns = new ArrayList<>();
+        for (String url : blockedUrls) {
+            patterns.add(glob(url));
+        }
+        this.blockedUrlPatterns = patterns;
+    }
+
+    /**
+     * Profile that leaves the network untouched
+     * @return NetworkProfile
+     */
+    public static NetworkProfile none() {
+        return new NetworkProfile("none", List.of(), Set.of(), Map.of(), null);
+    }
+
+    /**
+     * This method returns one of the predefined profiles
+     * <ul>
+     *     <li>none: no interception</li>
+     *     <li>no-trackers: analytics, tag managers and ad networks are blocked</li>
+     *     <li>lean: no-trackers plus images, fonts and media</li>
+     *     <li>slow-3g: no blocking, throttled to 400 ms latency and 50 KB/s</li>
+     * </ul>
+     * @param name profile name
+     * @return NetworkProfile
+     */
+    public static NetworkProfile named(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "none":
+                return none();
+            case "no-trackers":
+                return none().withName("no-trackers").blockingUrls(TRACKER_PATTERNS.toArray(new String[0]));
+            case "lean":
+                return named("no-trackers").withName("lean").blockingResourceTypes(ResourceType.IMAGE, ResourceType.FONT, ResourceType.MEDIA);
+            case "slow-3g":
+                return none().withName("slow-3g").withThrottling(Duration.ofMillis(400), 50_000, 50_000);
+            default:
+                throw new IllegalArgumentException("Unknown network profile: " + name);
+        }
+    }
+
+    public NetworkProfile withName(String name) {
+        return new NetworkProfile(name, blockedUrls, blockedResourceTypes, stubs, throttling);
+    }
+
+    public NetworkProfile blockingUrls(String... urlPatterns) {
+        List<String> urls = new ArrayList<>(blockedUrls);
+        Collections.addAll(urls, urlPatterns);
+        return new NetworkProfile(name, urls, blockedResourceTypes, stubs, throttling);
+    }
+
+    public NetworkProfile blockingResourceTypes(ResourceType... types) {
+        Set<ResourceType> resourceTypes = EnumSet.noneOf(ResourceType.class);
+        resourceTypes.addAll(blockedResourceTypes);
+        Collections.addAll(resourceTypes, types);
+        return new NetworkProfile(name, blockedUrls, resourceTypes, stubs, throttling);
+    }
+
+    /**
+     * Answer requests matching the pattern with a classpath resource instead of going to the network
+     * @param urlPattern glob on the full URL
+     * @param resourcePath classpath resource, e.g. {@code stubs/config.json}
+     * @return NetworkProfile
+     */
+    public NetworkProfile withStub(String urlPattern, String resourcePath) {
+        Map<String, Stub> stubbed = new LinkedHashMap<>(stubs);
+        stubbed.put(urlPattern, new Stub(glob(urlPattern), resourcePath));
+        return new NetworkProfile(name, blockedUrls, blockedResourceTypes, stubbed, throttling);
+    }
+
+    /**
+     * Emulate a slower connection, only supported on Chromium browsers
+     * @param latency added round trip latency
+     * @param downloadBytesPerSecond download throughput
+     * @param uploadBytesPerSecond upload throughput
+     * @return NetworkProfile
+     */
+    public NetworkProfile withThrottling(Duration latency, int downloadBytesPerSecond, int uploadBytesPerSecond) {
+        return new NetworkProfile(name, blockedUrls, blockedResourceTypes, stubs, new Throttling(latency, downloadBytesPerSecond, uploadBytesPerSecond));
+    }
+
+    /**
+     * @return true when the profile needs requests to be intercepted
+     */
+    public boolean intercepts() {
+        return !blockedUrls.isEmpty() || !blockedResourceTypes.isEmpty() || !stubs.isEmpty();
+    }
+
+    boolean isBlocked(String url, @Nullable ResourceType type) {
+        if (type != null && blockedResourceTypes.contains(type)) {
+            return true;
+        }
+        for (Pattern pattern : blockedUrlPatterns) {
+            if (pattern.matcher(url).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    Stub stubFor(String url) {
+        for (Stub stub : stubs.values()) {
+            if (stub.pattern.matcher(url).matches()) {
+                return stub;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static Pattern glob(String pattern) {
+        StringJoiner regex = new StringJoiner(".*");
+        for (String part : pattern.split("\\*", -1)) {
+            regex.add(Pattern.quote(part));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    @Getter
+    public static final class Throttling {
+        private final Duration latency;
+        private final int downloadBytesPerSecond;
+        private final int uploadBytesPerSecond;
+
+        private Throttling(Duration latency, int downloadBytesPerSecond, int uploadBytesPerSecond) {
+            this.latency = latency;
+            this.downloadBytesPerSecond = downloadBytesPerSecond;
+            this.uploadBytesPerSecond = uploadBytesPerSecond;
+        }
+    }
+
+    static final class Stub {
+        private final Pattern pattern;
+        private final String resourcePath;
+        private volatile byte[] content;
+
+        private Stub(Pattern pattern, String resourcePath) {
+            this.pattern = pattern;
+            this.resourcePath = resourcePath;
+        }
+
+        /**
+         * The resource is read once, on the first request it answers
+         */
+        byte[] content() {
+            byte[] bytes = content;
+            if (bytes == null) {
+                try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(resourcePath)) {
+                    if (in == null) {
+                        throw new IllegalStateException("[NetworkProfile] Stub resource not found: " + resourcePath);
+                    }
+                    bytes = in.readAllBytes();
+                } catch (IOException e) {
+                    throw new IllegalStateException("[NetworkProfile] Could not read stub resource " + resourcePath, e);
+                }
+                content = bytes;
+            }
+            return bytes;
+        }
+
+        String contentType() {
+            String guessed = URLConnection.guessContentTypeFromName(resourcePath);
+            if (guessed != null) {
+                return guessed;
+            }
+            return resourcePath.endsWith(".json") ? "application/json" : "application/octet-stream";
+        }
+    }
+}
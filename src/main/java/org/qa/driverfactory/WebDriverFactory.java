@@ -1,20 +1,32 @@
 package org.qa.driverfactory;
 
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.MutableCapabilities;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.edge.EdgeOptions;
-import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.safari.SafariDriver;
 import org.openqa.selenium.safari.SafariOptions;
+import org.qa.common.Config;
 
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 public class WebDriverFactory {
     //This is to avoid object creation
     private WebDriverFactory(){}
 
     private static final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+    private static final ThreadLocal<String> driverBrowser = new ThreadLocal<>();
+    /** Whether the driver of this thread holds a {@link DriverLifecycle} slot, a driver kept between tests does not */
+    private static final ThreadLocal<Boolean> slotHeld = new ThreadLocal<>();
+    private static final ThreadLocal<NetworkInterception> networkInterception = new ThreadLocal<>();
+    private static final Map<String, LongSummaryStatistics> startupTimes = new ConcurrentHashMap<>();
 
     /**Getter method to return driver
      * @return webDriver
@@ -24,57 +36,191 @@ public class WebDriverFactory {
     }
 
     /**
-     * This method instantiates driver only if it is null
+     * This method instantiates driver only if it is null, with the browser profiles named by {@link Config#BROWSER_PROFILES}
+     * and the network profile named by {@link Config#BROWSER_NETWORK_PROFILE}
      * @param browser : Type of browser
      */
     public static void setWebDriver(String browser){
-        if(driver.get()!=null){
-            return;
-        }
+        setWebDriver(browser, BrowserProfile.resolve(), NetworkProfile.named(Config.BROWSER_NETWORK_PROFILE));
+    }
 
-        if (driver.get() == null) {
-            switch (browser.toLowerCase()) {
-                case "chrome":
-                    ChromeOptions chromeOptions = new ChromeOptions();
-                    chromeOptions.addArguments("--start-maximized");
-                    chromeOptions.addArguments("--remote-allow-origins=*");
-                    ChromeDriver chromeDriver = new ChromeDriver(chromeOptions);
-                    driver.set(chromeDriver);
-                    break;
-                case "firefox":
-                    FirefoxOptions firefoxOptions = new FirefoxOptions();
-                    firefoxOptions.addArguments("--start-maximized");
-                    firefoxOptions.addArguments("--remote-allow-origins=*");
-                    FirefoxDriver firefoxDriver = new FirefoxDriver(firefoxOptions);
-                    driver.set(firefoxDriver);
-                    break;
-                case "edge":
-                    EdgeOptions edgeOptions = new EdgeOptions();
-                    edgeOptions.addArguments("--start-maximized");
-                    edgeOptions.addArguments("--remote-allow-origins=*");
-                    EdgeDriver edgeDriver = new EdgeDriver(edgeOptions);
-                    driver.set(edgeDriver);
-                    break;
-                case "safari":
-                    SafariOptions safariOptions = new SafariOptions();
-                    safariOptions.setCapability("safari:automaticInspection", true);
-                    safariOptions.setCapability("safari:automaticProfiling", true);
-                    safariOptions.setCapability("safari:diagnose", true);
-                    safariOptions.setCapability("safari:useSimulator", true);
-                    SafariDriver safariDriver = new SafariDriver(safariOptions);
-                    driver.set(safariDriver);
-                    safariDriver.manage().window().maximize();
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported browser: " + browser);
+    /**
+     * This method instantiates driver only if it is null and applies the network profile to it
+     * @param browser : Type of browser
+     * @param networkProfile : requests to block, stub or throttle, applied until the driver is released
+     */
+    public static void setWebDriver(String browser, NetworkProfile networkProfile){
+        setWebDriver(browser, BrowserProfile.resolve(), networkProfile);
+    }
+
+    /**
+     * This method instantiates driver only if it is null and applies the network profile to it
+     * When the driver pool is enabled a live session is borrowed from {@link DriverPool} instead, sessions are only
+     * shared between tests with the same browser profiles since the pool is keyed by the resulting options.
+     * Waits while {@link Config#DRIVER_MAX_SESSIONS_PER_BROWSER} sessions of the browser are in use, also before
+     * reusing a driver kept on this thread by an earlier test
+     * @param browser : Type of browser
+     * @param browserProfiles : profiles applied to the browser options, see {@link BrowserProfile#resolve(String...)}
+     * @param networkProfile : requests to block, stub or throttle, applied until the driver is released
+     */
+    public static void setWebDriver(String browser, List<BrowserProfile> browserProfiles, NetworkProfile networkProfile){
+        if(driver.get()!=null && !browser.equalsIgnoreCase(driverBrowser.get())){
+            // A session kept on this thread by an earlier test is of another browser, e.g. in a browser matrix
+            quitDriver();
+        }
+        if(driver.get()==null){
+            MutableCapabilities options = createOptions(browser, browserProfiles);
+            DriverLifecycle lifecycle = DriverLifecycle.getInstance();
+            lifecycle.acquire(browser);
+            try {
+                if (Config.DRIVER_POOL_ENABLED) {
+                    driver.set(DriverPool.getInstance().borrow(DriverPool.keyFor(browser, options), () -> createDriver(options)));
+                } else {
+                    driver.set(createDriver(options));
+                }
+            } catch (RuntimeException e) {
+                lifecycle.release(browser);
+                throw e;
             }
+            driverBrowser.set(browser);
+            slotHeld.set(true);
+        } else if (slotHeld.get() == null) {
+            DriverLifecycle.getInstance().acquire(browser);
+            slotHeld.set(true);
+        }
+        if (networkInterception.get() == null) {
+            networkInterception.set(NetworkInterception.start(driver.get(), networkProfile));
+        }
+    }
+
+    /**
+     * Network profile applied to the driver of the current thread, with the requests it blocked so far
+     * @return NetworkInterception, or null when no profile is active
+     */
+    public static NetworkInterception getNetworkInterception(){
+        return networkInterception.get();
+    }
+
+    /**
+     * This method builds the options for the given browser and applies the profiles to them
+     * @param browser : Type of browser
+     * @param browserProfiles : profiles to apply in order
+     * @return options
+     */
+    private static MutableCapabilities createOptions(String browser, List<BrowserProfile> browserProfiles){
+        MutableCapabilities options = createOptions(browser);
+        browserProfiles.forEach(profile -> profile.apply(options));
+        return options;
+    }
+
+    /**
+     * This method builds the base options for the given browser
+     * @param browser : Type of browser
+     * @return options
+     */
+    private static MutableCapabilities createOptions(String browser){
+        switch (browser.toLowerCase()) {
+            case "chrome":
+                ChromeOptions chromeOptions = new ChromeOptions();
+                chromeOptions.addArguments("--remote-allow-origins=*");
+                return chromeOptions;
+            case "firefox":
+                FirefoxOptions firefoxOptions = new FirefoxOptions();
+                firefoxOptions.addArguments("--remote-allow-origins=*");
+                return firefoxOptions;
+            case "edge":
+                EdgeOptions edgeOptions = new EdgeOptions();
+                edgeOptions.addArguments("--remote-allow-origins=*");
+                return edgeOptions;
+            case "safari":
+                SafariOptions safariOptions = new SafariOptions();
+                safariOptions.setCapability("safari:automaticInspection", true);
+                safariOptions.setCapability("safari:automaticProfiling", true);
+                safariOptions.setCapability("safari:diagnose", true);
+                safariOptions.setCapability("safari:useSimulator", true);
+                return safariOptions;
+            default:
+                throw new IllegalArgumentException("Unsupported browser: " + browser);
+        }
+    }
+
+    /**
+     * This method starts a new browser session for the given options and records how long it took
+     * from the session being requested until the driver is ready for its first command
+     * @param options : Options built by {@link #createOptions(String, List)}
+     * @return webDriver
+     */
+    private static WebDriver createDriver(MutableCapabilities options){
+        long start = System.nanoTime();
+        WebDriver webDriver;
+        if (options instanceof SafariOptions) {
+            SafariDriver safariDriver = new SafariDriver((SafariOptions) options);
+            safariDriver.manage().window().maximize();
+            webDriver = safariDriver;
+        } else {
+            webDriver = DriverServices.startSession(options);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LongSummaryStatistics stats = startupTimes.computeIfAbsent(options.getBrowserName(), b -> new LongSummaryStatistics());
+        synchronized (stats) {
+            stats.accept(elapsedMillis);
+        }
+        log.info("[WebDriverFactory] {} session ready in {} ms", options.getBrowserName(), elapsedMillis);
+        DriverLifecycle.getInstance().register(webDriver);
+        return webDriver;
+    }
+
+    /**
+     * Time from "session requested" to "first command ready" per browser, in milliseconds
+     * @return startup statistics keyed by browser name
+     */
+    public static Map<String, LongSummaryStatistics> getStartupTimes(){
+        return Map.copyOf(startupTimes);
+    }
+
+    /**
+     * This method hands the driver of the current thread back to the pool
+     * Without pooling the driver is kept for the next test on this thread, as before, but its slot is given back
+     * so idle drivers kept on other threads do not block tests waiting for a session
+     */
+    public static void releaseDriver(){
+        closeNetworkInterception();
+        if(driver.get()!= null && Config.DRIVER_POOL_ENABLED){
+            DriverPool.getInstance().release(driver.get());
+            releaseSlot();
+            driver.remove();
+            driverBrowser.remove();
+        } else {
+            releaseSlot();
         }
     }
 
     public static void quitDriver(){
+        closeNetworkInterception();
         if(driver.get()!= null){
-            driver.get().quit();
+            if (Config.DRIVER_POOL_ENABLED) {
+                DriverPool.getInstance().invalidate(driver.get());
+            } else {
+                DriverLifecycle.getInstance().quit(driver.get());
+            }
+            releaseSlot();
             driver.remove();
+            driverBrowser.remove();
+        }
+    }
+
+    private static void releaseSlot(){
+        if (slotHeld.get() != null) {
+            DriverLifecycle.getInstance().release(driverBrowser.get());
+            slotHeld.remove();
+        }
+    }
+
+    private static void closeNetworkInterception(){
+        NetworkInterception interception = networkInterception.get();
+        if (interception != null) {
+            interception.close();
+            networkInterception.remove();
         }
     }
 }
@@ -0,0 +1,187 @@
+package org.qa.helpers;
+
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.interactions.Coordinates;
+import org.openqa.selenium.interactions.Locatable;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * WebElement backed by a {@link PageElementCache} entry.
+ * Calls go to the cached reference, and a stale reference is invalidated and resolved once more before retrying
+ */
+public class CachedElement implements WebElement, WrapsElement, Locatable {
+
+    private final PageElementCache cache;
+    private final int index;
+
+    CachedElement(PageElementCache cache, int index) {
+        this.cache = cache;
+        this.index = index;
+    }
+
+    public By getLocator() {
+        return cache.getLocator(index);
+    }
+
+    /**
+     * @return page object class the element was declared on, or null when it is not known
+     */
+    @Nullable
+    public Class<?> getPageClass() {
+        return cache.getPageClass();
+    }
+
+    @Override
+    public WebElement getWrappedElement() {
+        return cache.get(index);
+    }
+
+    @Override
+    public Coordinates getCoordinates() {
+        return call(element -> ((Locatable) element).getCoordinates());
+    }
+
+    @Override
+    public void click() {
+        run(WebElement::click);
+    }
+
+    @Override
+    public void submit() {
+        run(WebElement::submit);
+    }
+
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+        run(element -> element.sendKeys(keysToSend));
+    }
+
+    @Override
+    public void clear() {
+        run(WebElement::clear);
+    }
+
+    @Override
+    public String getTagName() {
+        return call(WebElement::getTagName);
+    }
+
+    @Override
+    public String getDomProperty(String name) {
+        return call(element -> element.getDomProperty(name));
+    }
+
+    @Override
+    public String getDomAttribute(String name) {
+        return call(element -> element.getDomAttribute(name));
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String getAttribute(String name) {
+        return call(element -> element.getAttribute(name));
+    }
+
+    @Override
+    public String getAriaRole() {
+        return call(WebElement::getAriaRole);
+    }
+
+    @Override
+    public String getAccessibleName() {
+        return call(WebElement::getAccessibleName);
+    }
+
+    @Override
+    public boolean isSelected() {
+        return call(WebElement::isSelected);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return call(WebElement::isEnabled);
+    }
+
+    @Override
+    public String getText() {
+        return call(WebElement::getText);
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return call(element -> element.findElements(by));
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        return call(element -> element.findElement(by));
+    }
+
+    @Override
+    public SearchContext getShadowRoot() {
+        return call(WebElement::getShadowRoot);
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        return call(WebElement::isDisplayed);
+    }
+
+    @Override
+    public Point getLocation() {
+        return call(WebElement::getLocation);
+    }
+
+    @Override
+    public Dimension getSize() {
+        return call(WebElement::getSize);
+    }
+
+    @Override
+    public Rectangle getRect() {
+        return call(WebElement::getRect);
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        return call(element -> element.getCssValue(propertyName));
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        return call(element -> element.getScreenshotAs(target));
+    }
+
+    @Override
+    public String toString() {
+        return "Cached element for: " + getLocator();
+    }
+
+    private <T> T call(Function<WebElement, T> action) {
+        try {
+            return action.apply(cache.get(index));
+        } catch (StaleElementReferenceException e) {
+            cache.invalidate(index);
+            return action.apply(cache.get(index));
+        }
+    }
+
+    private void run(Consumer<WebElement> action) {
+        call(element -> {
+            action.accept(element);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,279 @@
+package org.qa.helpers;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.qa.driverfactory.WebDriverFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Queues reads and simple writes across many elements and runs them as one executeScript call.
+ * Steps run in order and the batch stops at the first step that fails
+ *
+ * <pre>
+ * CommandBatch batch = new CommandBatch();
+ * CommandBatch.Step&lt;Boolean&gt; enabled = batch.isEnabled(button);
+ * batch.setValue(userName, "standard_user");
+ * batch.click(button);
+ * boolean wasEnabled = batch.execute().orThrow().get(enabled);
+ * </pre>
+ */
+@Slf4j
+public class CommandBatch {
+
+    private static final String BATCH_SCRIPT =
+            "var steps = arguments[0], els = arguments[1], out = [];" +
+            "function displayed(e) {" +
+            "  var s = window.getComputedStyle(e);" +
+            "  if (s.visibility !== 'visible' || s.opacity === '0') return false;" +
+            "  var r = e.getClientRects();" +
+            "  return r.length > 0 && (r[0].width > 0 || r[0].height > 0);" +
+            "}" +
+            "function requireDisplayed(e) { if (!displayed(e)) { throw new Error('element is not displayed'); } }" +
+            "for (var i = 0; i < steps.length; i++) {" +
+            "  var s = steps[i], e = els[s.el];" +
+            "  try {" +
+            "    if (!e || !e.isConnected) { throw new Error('element is not attached to the page'); }" +
+            "    switch (s.op) {" +
+            "      case 'displayed': out.push(displayed(e)); break;" +
+            "      case 'requireDisplayed': requireDisplayed(e); out.push(true); break;" +
+            "      case 'enabled': out.push(!e.disabled); break;" +
+            "      case 'selected': out.push(!!(e.checked || e.selected)); break;" +
+            "      case 'innerText': out.push(e.innerText); break;" +
+            "      case 'attribute': out.push(e.getAttribute(s.name)); break;" +
+            "      case 'setValue':" +
+            "        requireDisplayed(e); e.focus();" +
+            // The prototype setter keeps frameworks that track the value property (e.g. React) in sync
+            "        var d = Object.getOwnPropertyDescriptor(Object.getPrototypeOf(e), 'value');" +
+            "        if (d && d.set) { d.set.call(e, s.value); } else { e.value = s.value; }" +
+            "        e.dispatchEvent(new Event('input', { bubbles: true }));" +
+            "        e.dispatchEvent(new Event('change', { bubbles: true }));" +
+            "        out.push(null); break;" +
+            "      case 'click': requireDisplayed(e); e.click(); out.push(null); break;" +
+            "      default: throw new Error('unknown operation ' + s.op);" +
+            "    }" +
+            "  } catch (err) {" +
+            "    return { results: out, failedStep: i, error: String(err && err.message ? err.message : err) };" +
+            "  }" +
+            "}" +
+            "return { results: out, failedStep: -1 };";
+
+    /** Failed step of a batch that failed before any step ran, for a reason that could not be tied to one step */
+    public static final int UNKNOWN_STEP = -2;
+    private static final int NO_FAILURE = -1;
+
+    private final List<Map<String, Object>> steps = new ArrayList<>();
+    private final List<Step<?>> handles = new ArrayList<>();
+    private final List<WebElement> elements = new ArrayList<>();
+    private final Map<WebElement, Integer> elementIndexes = new IdentityHashMap<>();
+
+    public Step<Boolean> isDisplayed(WebElement element) {
+        return addStep("displayed", element, null, null, CommandBatch::toBoolean);
+    }
+
+    /**
+     * Fails the batch at this step when the element is not displayed
+     */
+    public Step<Boolean> requireDisplayed(WebElement element) {
+        return addStep("requireDisplayed", element, null, null, CommandBatch::toBoolean);
+    }
+
+    public Step<Boolean> isEnabled(WebElement element) {
+        return addStep("enabled", element, null, null, CommandBatch::toBoolean);
+    }
+
+    public Step<Boolean> isSelected(WebElement element) {
+        return addStep("selected", element, null, null, CommandBatch::toBoolean);
+    }
+
+    public Step<String> getInnerText(WebElement element) {
+        return addStep("innerText", element, null, null, value -> (String) value);
+    }
+
+    public Step<String> getAttribute(WebElement element, String name) {
+        return addStep("attribute", element, name, null, value -> (String) value);
+    }
+
+    /**
+     * Set the value of an input and dispatch input and change events, without real key presses
+     */
+    public Step<Void> setValue(WebElement element, String value) {
+        return addStep("setValue", element, null, value, ignored -> null);
+    }
+
+    public Step<Void> click(WebElement element) {
+        return addStep("click", element, null, null, ignored -> null);
+    }
+
+    /**
+     * Run the batch on the driver of the current thread
+     * @return BatchResult
+     */
+    public BatchResult execute() {
+        return execute(WebDriverFactory.getWebDriver());
+    }
+
+    /**
+     * Run the batch in one executeScript call
+     * @param driver WebDriver
+     * @return BatchResult
+     */
+    @SuppressWarnings("unchecked")
+    public BatchResult execute(WebDriver driver) {
+        if (steps.isEmpty()) {
+            return new BatchResult(List.of(), NO_FAILURE, null);
+        }
+        Map<String, Object> result;
+        try {
+            result = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(BATCH_SCRIPT, steps, elements);
+        } catch (NoSuchElementException e) {
+            int failedStep = firstUnresolvableStep();
+            log.error("[CommandBatch] {} failed, element could not be located", describe(failedStep));
+            return new BatchResult(List.of(), failedStep, e.getMessage());
+        } catch (StaleElementReferenceException e) {
+            log.error("[CommandBatch] {} failed, element is no longer attached to the page", describe(UNKNOWN_STEP));
+            return new BatchResult(List.of(), UNKNOWN_STEP, e.getMessage());
+        }
+
+        int failedStep = ((Number) result.get("failedStep")).intValue();
+        String error = (String) result.get("error");
+        if (failedStep >= 0) {
+            log.error("[CommandBatch] {} failed: {}", describe(failedStep), error);
+        }
+        return new BatchResult((List<Object>) result.get("results"), failedStep, error);
+    }
+
+    private <T> Step<T> addStep(String operation, WebElement element, String name, String value, Function<Object, T> converter) {
+        Map<String, Object> step = new HashMap<>();
+        step.put("op", operation);
+        step.put("el", elementIndexes.computeIfAbsent(element, e -> {
+            elements.add(e);
+            return elements.size() - 1;
+        }));
+        if (name != null) {
+            step.put("name", name);
+        }
+        if (value != null) {
+            step.put("value", value);
+        }
+        steps.add(step);
+        Step<T> handle = new Step<>(handles.size(), operation, element, converter);
+        handles.add(handle);
+        return handle;
+    }
+
+    /**
+     * Lazily located elements are resolved by the driver before the script runs, so a missing element
+     * fails the whole call. Only on that failure path each element is resolved on its own to find the step
+     * @return index of the first step whose element cannot be located, or {@link #UNKNOWN_STEP} when all of them can
+     */
+    private int firstUnresolvableStep() {
+        for (Step<?> handle : handles) {
+            try {
+                if (handle.element instanceof WrapsElement) {
+                    ((WrapsElement) handle.element).getWrappedElement();
+                }
+            } catch (NoSuchElementException e) {
+                return handle.index;
+            }
+        }
+        return UNKNOWN_STEP;
+    }
+
+    private String describe(int step) {
+        return step == UNKNOWN_STEP ? "Unknown step" : "Step " + step + " (" + handles.get(step) + ")";
+    }
+
+    private static Boolean toBoolean(Object value) {
+        return (Boolean) value;
+    }
+
+    /**
+     * Typed handle to the result of one queued step
+     * @param <T> type of the step result
+     */
+    public static final class Step<T> {
+        @Getter
+        private final int index;
+        private final String operation;
+        private final WebElement element;
+        private final Function<Object, T> converter;
+
+        private Step(int index, String operation, WebElement element, Function<Object, T> converter) {
+            this.index = index;
+            this.operation = operation;
+            this.element = element;
+            this.converter = converter;
+        }
+
+        @Override
+        public String toString() {
+            return operation + " on " + element;
+        }
+    }
+
+    /**
+     * Outcome of a batch: results of the steps that ran and, on failure, which step failed and why
+     */
+    public final class BatchResult {
+        private final List<Object> results;
+        @Getter
+        private final int failedStep;
+        @Getter
+        private final String error;
+
+        private BatchResult(List<Object> results, int failedStep, String error) {
+            this.results = results;
+            this.failedStep = failedStep;
+            this.error = error;
+        }
+
+        public boolean isSuccessful() {
+            return failedStep == NO_FAILURE;
+        }
+
+        /**
+         * Result of a step, only available for steps that ran before any failure
+         * @param step handle returned when the step was queued
+         * @return value read by the step
+         */
+        public <T> T get(Step<T> step) {
+            if (step.index >= results.size()) {
+                throw new IllegalStateException("[CommandBatch] Step " + step + " did not run");
+            }
+            return step.converter.apply(results.get(step.index));
+        }
+
+        /**
+         * @return this result when every step succeeded
+         * @throws BatchException describing the failed step otherwise
+         */
+        public BatchResult orThrow() {
+            if (!isSuccessful()) {
+                throw new BatchException(failedStep, describe(failedStep), error);
+            }
+            return this;
+        }
+    }
+
+    @Getter
+    public static class BatchException extends RuntimeException {
+        private final int failedStep;
+
+        public BatchException(int failedStep, String step, String error) {
+            super(String.format("[CommandBatch] %s failed: %s", step, error));
+            this.failedStep = failedStep;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.qa.helpers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Element waits that run inside the browser.
+ * A MutationObserver/IntersectionObserver installed through an async script resolves as soon as the
+ * element becomes visible, so a wait costs one round trip and no polling interval is lost.
+ * Drivers without async script support, and elements that are not attached yet, fall back to polling that starts
+ * at an interval learned per locator by {@link WaitHistory} and backs off exponentially up to the polling interval
+ */
+@Slf4j
+public class ElementWait {
+
+    private ElementWait() {}
+
+    /** Headroom on top of the wait timeout so the driver never aborts the script before it resolves itself */
+    private static final Duration SCRIPT_TIMEOUT_HEADROOM = Duration.ofSeconds(5);
+
+    private static final String VISIBILITY_SCRIPT =
+            "var el = arguments[0], timeout = arguments[1], prop = arguments[2], done = arguments[arguments.length - 1];" +
+            "function visible(e) {" +
+            "  if (!e.isConnected) return false;" +
+            "  var s = window.getComputedStyle(e);" +
+            "  if (s.visibility !== 'visible' || s.opacity === '0') return false;" +
+            "  var r = e.getClientRects();" +
+            "  return r.length > 0 && (r[0].width > 0 || r[0].height > 0);" +
+            "}" +
+            "function result(ok) { var r = { visible: ok }; if (ok && prop) { r.value = el[prop]; } return r; }" +
+            "if (visible(el)) { done(result(true)); return; }" +
+            "var finished = false, io = null, timer;" +
+            "function finish(ok) {" +
+            "  finished = true; observer.disconnect(); if (io) { io.disconnect(); } clearTimeout(timer);" +
+            "  document.removeEventListener('transitionend', check, true);" +
+            "  document.removeEventListener('animationend', check, true);" +
+            "  done(result(ok));" +
+            "}" +
+            "function check() { if (!finished && visible(el)) { finish(true); } }" +
+            "var observer = new MutationObserver(check);" +
+            "observer.observe(document.documentElement, { attributes: true, childList: true, subtree: true });" +
+            "if (window.IntersectionObserver) { io = new IntersectionObserver(check); io.observe(el); }" +
+            "document.addEventListener('transitionend', check, true);" +
+            "document.addEventListener('animationend', check, true);" +
+            "timer = setTimeout(function () { if (!finished) { finish(visible(el)); } }, timeout);";
+
+    private static final Map<WebDriver, Duration> scriptTimeouts = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Set<WebDriver> scriptWaitUnsupported = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * Wait until the element is visible
+     * @param driver WebDriver the element belongs to
+     * @param element WebElement
+     * @param timeout maximum time to wait
+     * @param pollingInterval longest interval of the polling fallback
+     * @return WebElement
+     */
+    public static WebElement untilVisible(WebDriver driver, WebElement element, Duration timeout, Duration pollingInterval) {
+        waitAndRead(driver, element, null, timeout, pollingInterval);
+        return element;
+    }
+
+    /**
+     * Wait until the element is visible and read one of its DOM properties in the same round trip
+     * @param driver WebDriver the element belongs to
+     * @param element WebElement
+     * @param property DOM property to read, e.g. innerText
+     * @param timeout maximum time to wait
+     * @param pollingInterval longest interval of the polling fallback
+     * @return value of the property
+     */
+    public static Object readWhenVisible(WebDriver driver, WebElement element, String property, Duration timeout, Duration pollingInterval) {
+        return waitAndRead(driver, element, property, timeout, pollingInterval);
+    }
+
+    private static Object waitAndRead(WebDriver driver, WebElement element, String property, Duration timeout, Duration pollingInterval) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        String historyKey = WaitHistory.key(element);
+        if (driver instanceof JavascriptExecutor && !scriptWaitUnsupported.contains(driver)) {
+            try {
+                ensureScriptTimeout(driver, timeout);
+                @SuppressWarnings("unchecked")
+                Map<String, Object> result = (Map<String, Object>) ((JavascriptExecutor) driver)
+                        .executeAsyncScript(VISIBILITY_SCRIPT, element, timeout.toMillis(), property);
+                if (Boolean.TRUE.equals(result.get("visible"))) {
+                    WaitHistory.observe(historyKey, (System.nanoTime() - start) / 1_000_000.0);
+                    return result.get("value");
+                }
+                throw new TimeoutException("[ElementWait] Element was not visible after " + timeout.toMillis() + " ms: " + element);
+            } catch (NoSuchElementException | StaleElementReferenceException e) {
+                log.debug("[ElementWait] Element not attached yet, polling instead");
+            } catch (UnsupportedCommandException e) {
+                log.warn("[ElementWait] Script based waits are not supported by this driver, polling instead: {}", e.getMessage());
+                scriptWaitUnsupported.add(driver);
+            } catch (JavascriptException e) {
+                // a navigation or a page script error during the wait, the next wait tries the script again
+                log.debug("[ElementWait] Script wait interrupted, polling for this wait: {}", e.getMessage());
+            }
+        }
+
+        pollUntilVisible(element, deadline, WaitHistory.startInterval(historyKey, pollingInterval), pollingInterval, timeout);
+        WaitHistory.observe(historyKey, (System.nanoTime() - start) / 1_000_000.0);
+        return property == null ? null : ((JavascriptExecutor) driver).executeScript("return arguments[0][arguments[1]];", element, property);
+    }
+
+    /**
+     * Poll with exponential back-off: an element that usually appears within a few milliseconds is not held back
+     * by a long fixed interval, and one that takes seconds is not polled hundreds of times
+     */
+    private static void pollUntilVisible(WebElement element, long deadline, Duration startInterval, Duration maxInterval, Duration timeout) {
+        long interval = startInterval.toNanos();
+        while (true) {
+            try {
+                if (element.isDisplayed()) {
+                    return;
+                }
+            } catch (NoSuchElementException | StaleElementReferenceException e) {
+                // not attached yet
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException("[ElementWait] Element was not visible after " + timeout.toMillis() + " ms: " + element);
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(interval, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WebDriverException("[ElementWait] Interrupted while waiting for " + element, e);
+            }
+            interval = Math.min(interval * 2, maxInterval.toNanos());
+        }
+    }
+
+    private static void ensureScriptTimeout(WebDriver driver, Duration timeout) {
+        Duration scriptTimeout = timeout.plus(SCRIPT_TIMEOUT_HEADROOM);
+        Duration configured = scriptTimeouts.get(driver);
+        if (configured == null || configured.compareTo(scriptTimeout) < 0) {
+            driver.manage().timeouts().scriptTimeout(scriptTimeout);
+            scriptTimeouts.put(driver, scriptTimeout);
+        }
+    }
+}
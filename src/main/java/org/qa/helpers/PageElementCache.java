@@ -0,0 +1,165 @@
+package org.qa.helpers;
+
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-page cache of element references.
+ * All locators of a page are resolved together in one scripted query, and when entries are invalidated
+ * (e.g. after a stale reference) only those entries are resolved again, again in a single query
+ */
+public class PageElementCache {
+
+    private static final String RESOLVE_SCRIPT =
+            "var locators = arguments[0], out = [];" +
+            "function byLinkText(text, partial) {" +
+            "  var links = document.getElementsByTagName('a');" +
+            "  for (var i = 0; i < links.length; i++) {" +
+            "    var t = (links[i].innerText || '').trim();" +
+            "    if (partial ? t.indexOf(text) !== -1 : t === text) { return links[i]; }" +
+            "  }" +
+            "  return null;" +
+            "}" +
+            "for (var i = 0; i < locators.length; i++) {" +
+            "  var using = locators[i].using, value = locators[i].value, el = null;" +
+            "  try {" +
+            "    switch (using) {" +
+            "      case 'css selector': el = document.querySelector(value); break;" +
+            "      case 'xpath': el = document.evaluate(value, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue; break;" +
+            "      case 'tag name': el = document.getElementsByTagName(value)[0] || null; break;" +
+            "      case 'link text': el = byLinkText(value, false); break;" +
+            "      case 'partial link text': el = byLinkText(value, true); break;" +
+            "    }" +
+            "  } catch (e) { el = null; }" +
+            "  out.push(el);" +
+            "}" +
+            "return out;";
+
+    private final WebDriver driver;
+    @Nullable
+    private final Class<?> pageClass;
+    private final By[] locators;
+    private final WebElement[] resolved;
+    private final boolean[] attempted;
+    private final CachedElement[] elements;
+
+    public PageElementCache(WebDriver driver, By... locators) {
+        this(driver, null, locators);
+    }
+
+    /**
+     * @param driver WebDriver
+     * @param pageClass page object the elements belong to, used to tag their metrics
+     * @param locators locators in field order
+     */
+    public PageElementCache(WebDriver driver, @Nullable Class<?> pageClass, By... locators) {
+        this.driver = driver;
+        this.pageClass = pageClass;
+        this.locators = locators;
+        this.resolved = new WebElement[locators.length];
+        this.attempted = new boolean[locators.length];
+        this.elements = new CachedElement[locators.length];
+        for (int i = 0; i < locators.length; i++) {
+            elements[i] = new CachedElement(this, i);
+        }
+    }
+
+    /**
+     * Resolve every locator of the page in one query
+     * @return this cache
+     */
+    public PageElementCache resolveAll() {
+        resolveMissing();
+        return this;
+    }
+
+    /**
+     * Element backed by this cache, safe to keep in a page field
+     * @param index position of the locator
+     * @return WebElement
+     */
+    public WebElement element(int index) {
+        return elements[index];
+    }
+
+    @Nullable
+    public Class<?> getPageClass() {
+        return pageClass;
+    }
+
+    public By getLocator(int index) {
+        return locators[index];
+    }
+
+    public int size() {
+        return locators.length;
+    }
+
+    /**
+     * Live reference for the locator, resolving it (together with every other invalidated entry) if needed
+     * @param index position of the locator
+     * @return WebElement
+     */
+    public synchronized WebElement get(int index) {
+        if (resolved[index] == null && !attempted[index]) {
+            resolveMissing();
+        }
+        WebElement element = resolved[index];
+        if (element == null) {
+            // Not present at the last resolution, look it up on its own so late elements are still found
+            element = driver.findElement(locators[index]);
+            resolved[index] = element;
+        }
+        return element;
+    }
+
+    public synchronized void invalidate(int index) {
+        resolved[index] = null;
+        attempted[index] = false;
+    }
+
+    public synchronized void invalidateAll() {
+        for (int i = 0; i < locators.length; i++) {
+            invalidate(i);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void resolveMissing() {
+        List<Integer> scripted = new ArrayList<>();
+        List<Map<String, Object>> query = new ArrayList<>();
+        for (int i = 0; i < locators.length; i++) {
+            if (resolved[i] != null || attempted[i]) {
+                continue;
+            }
+            attempted[i] = true;
+            if (locators[i] instanceof By.Remotable) {
+                By.Remotable.Parameters parameters = ((By.Remotable) locators[i]).getRemoteParameters();
+                scripted.add(i);
+                query.add(Map.of("using", parameters.using(), "value", String.valueOf(parameters.value())));
+            } else {
+                try {
+                    resolved[i] = driver.findElement(locators[i]);
+                } catch (NoSuchElementException e) {
+                    resolved[i] = null;
+                }
+            }
+        }
+        if (query.isEmpty()) {
+            return;
+        }
+
+        List<WebElement> found = (List<WebElement>) ((JavascriptExecutor) driver).executeScript(RESOLVE_SCRIPT, query);
+        for (int i = 0; i < scripted.size(); i++) {
+            resolved[scripted.get(i)] = found.get(i);
+        }
+    }
+}
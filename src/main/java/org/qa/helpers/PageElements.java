@@ -0,0 +1,141 @@
+package org.qa.helpers;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindAll;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
+import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.support.pagefactory.Annotations;
+import org.openqa.selenium.support.pagefactory.DefaultElementLocatorFactory;
+import org.openqa.selenium.support.pagefactory.DefaultFieldDecorator;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Page initialiser that resolves every @FindBy element of a page in a single scripted query.
+ * The references are kept in a {@link PageElementCache} per page instead of lazy proxies that each
+ * look their element up on first use.
+ * Pages are initialised by their compile-time generated {@link PageInitializer} when one exists, otherwise
+ * fields are found by reflection. List fields are still decorated by {@link PageFactory}
+ */
+public class PageElements {
+
+    private PageElements() {}
+
+    private static final ClassValue<PageInitializer<?>> generatedInitializers = new ClassValue<>() {
+        @Override
+        protected PageInitializer<?> computeValue(Class<?> pageClass) {
+            try {
+                Class<?> initializerClass = Class.forName(pageClass.getName() + "_PageInitializer", true, pageClass.getClassLoader());
+                return (PageInitializer<?>) initializerClass.getDeclaredConstructor().newInstance();
+            } catch (ClassNotFoundException e) {
+                return null;
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException("[PageElements] Could not load generated initialiser for " + pageClass.getName(), e);
+            }
+        }
+    };
+
+    private static final ClassValue<Constructor<?>> driverConstructors = new ClassValue<>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> pageClass) {
+            try {
+                return pageClass.getConstructor(WebDriver.class);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+
+    /**
+     * Create a page. Pages with a WebDriver constructor are expected to initialise themselves through
+     * {@link #initElements(WebDriver, Object)}, other pages are created with their no-arg constructor and initialised here
+     * @param driver WebDriver
+     * @param pageClass page object class
+     * @return page object
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T create(WebDriver driver, Class<T> pageClass) {
+        PageInitializer<T> generated = (PageInitializer<T>) generatedInitializers.get(pageClass);
+        if (generated != null) {
+            return generated.create(driver);
+        }
+        try {
+            Constructor<?> constructor = driverConstructors.get(pageClass);
+            if (constructor != null) {
+                return pageClass.cast(constructor.newInstance(driver));
+            }
+            T page = pageClass.getDeclaredConstructor().newInstance();
+            initElements(driver, page);
+            return page;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("[PageElements] Could not create page " + pageClass.getName(), e);
+        }
+    }
+
+    /**
+     * Resolve all @FindBy/@FindBys/@FindAll WebElement fields of the page in one query and assign them
+     * @param driver WebDriver
+     * @param page page object
+     * @return cache holding the page's element references
+     */
+    @SuppressWarnings("unchecked")
+    public static PageElementCache initElements(WebDriver driver, Object page) {
+        PageInitializer<Object> generated = (PageInitializer<Object>) generatedInitializers.get(page.getClass());
+        if (generated != null) {
+            return generated.initElements(driver, page);
+        }
+        return initElementsReflectively(driver, page);
+    }
+
+    /**
+     * Reflective initialisation, used for pages without a generated initialiser
+     * @param driver WebDriver
+     * @param page page object
+     * @return cache holding the page's element references
+     */
+    public static PageElementCache initElementsReflectively(WebDriver driver, Object page) {
+        List<Field> elementFields = new ArrayList<>();
+        List<By> locators = new ArrayList<>();
+        boolean hasListFields = false;
+        for (Class<?> type = page.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (!isLocated(field)) {
+                    continue;
+                }
+                if (WebElement.class.equals(field.getType())) {
+                    elementFields.add(field);
+                    locators.add(new Annotations(field).buildBy());
+                } else if (List.class.equals(field.getType())) {
+                    hasListFields = true;
+                }
+            }
+        }
+
+        PageElementCache cache = new PageElementCache(driver, page.getClass(), locators.toArray(new By[0])).resolveAll();
+        try {
+            for (int i = 0; i < elementFields.size(); i++) {
+                Field field = elementFields.get(i);
+                field.setAccessible(true);
+                field.set(page, cache.element(i));
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("[PageElements] Could not initialise " + page.getClass().getName(), e);
+        }
+
+        if (hasListFields) {
+            DefaultFieldDecorator listDecorator = new DefaultFieldDecorator(new DefaultElementLocatorFactory(driver));
+            PageFactory.initElements((loader, field) -> List.class.equals(field.getType()) ? listDecorator.decorate(loader, field) : null, page);
+        }
+        return cache;
+    }
+
+    private static boolean isLocated(Field field) {
+        return field.isAnnotationPresent(FindBy.class) || field.isAnnotationPresent(FindBys.class) || field.isAnnotationPresent(FindAll.class);
+    }
+}
@@ -0,0 +1,27 @@
+package org.qa.helpers;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Initialiser generated at compile time for each page object with @FindBy fields.
+ * Generated classes are named {@code <PageClass>_PageInitializer} and assign the page fields directly,
+ * without reflection or proxies
+ * @param <T> page object type
+ */
+public interface PageInitializer<T> {
+
+    /**
+     * Create the page
+     * @param driver WebDriver
+     * @return page object
+     */
+    T create(WebDriver driver);
+
+    /**
+     * Resolve the page's elements in one query and assign its fields
+     * @param driver WebDriver
+     * @param page page object
+     * @return cache holding the page's element references
+     */
+    PageElementCache initElements(WebDriver driver, T page);
+}
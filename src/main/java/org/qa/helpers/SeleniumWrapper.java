@@ -1,17 +1,20 @@
 package org.qa.helpers;
 
 import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
 import org.openqa.selenium.*;
 import org.openqa.selenium.interactions.Actions;
-import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.FluentWait;
-import org.openqa.selenium.support.ui.Wait;
+import org.qa.common.Config;
 import org.qa.driverfactory.WebDriverFactory;
+import org.qa.listeners.TestDependencies;
 import org.qa.listeners.TestListener;
+import org.qa.metrics.EventBuffer;
+import org.qa.metrics.LatencyRecorder;
+import org.qa.metrics.PageMetricsReport;
 
 import java.time.Duration;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * This class has all methods to perform necessary actions on a web page
@@ -27,9 +30,25 @@ public class SeleniumWrapper {
     private static final String ERR_MESSAGE = "[SeleniumWrapper] No element was found with locator {}";
 
 
+    /**
+     * Create a page object with all of its elements resolved in one query
+     * @param pageClass page object class
+     * @return page object
+     */
     public static <T> T getPage(Class<T> pageClass) {
+        TestDependencies.record(pageClass);
+        long start = System.nanoTime();
         WebDriver driver = TestListener.getDriver();
-        return PageFactory.initElements(driver, pageClass);
+        Throwable failure = null;
+        try {
+            return PageElements.create(driver, pageClass);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            LatencyRecorder.record("getPage", pageClass.getSimpleName(), LatencyRecorder.NONE, start);
+            EventBuffer.record("getPage", pageClass, null, failure, start);
+        }
     }
 
 
@@ -39,7 +58,7 @@ public class SeleniumWrapper {
      */
     public static void clickOnElement(WebElement element) {
         try {
-            element.click();
+            timed("click", element, element::click);
         } catch (NoSuchElementException ne){
             log.error(ERR_MESSAGE, element);
         }
@@ -51,11 +70,13 @@ public class SeleniumWrapper {
      */
     public static void clickOnLink(WebElement element) {
         try {
-            String href = element.getDomAttribute("href");
-            if (href == null || href.isEmpty()) {
-                throw new AssertionError("[SeleniumWrapper] Link does not have a valid href attribute");
-            }
-            element.click();
+            timed("clickLink", element, () -> {
+                String href = element.getDomAttribute("href");
+                if (href == null || href.isEmpty()) {
+                    throw new AssertionError("[SeleniumWrapper] Link does not have a valid href attribute");
+                }
+                element.click();
+            });
         } catch (Exception e) {
             log.error("[SeleniumWrapper] Error during link click operation on {}", element);
             throw e;
@@ -69,8 +90,7 @@ public class SeleniumWrapper {
      */
     public static WebElement waitForElementToBeVisible(WebElement element) {
         try {
-            log.info("[SeleniumWrapper] Waiting for element to be visible.");
-            return getFluentWait().until(ExpectedConditions.visibilityOf(element));
+            return timed("waitForVisible", element, () -> ElementWait.untilVisible(WebDriverFactory.getWebDriver(), element, DEFAULT_TIMEOUT, POLLING_INTERVAL));
         } catch (TimeoutException e) {
             log.error("[SeleniumWrapper] Timeout while waiting for element visibility.");
             throw e;
@@ -78,17 +98,6 @@ public class SeleniumWrapper {
     }
 
 
-    /**
-     * Fluent wait method
-     * @return Wait Object
-     */
-    private static Wait<WebDriver> getFluentWait() {
-        return new FluentWait<>(WebDriverFactory.getWebDriver())
-                .withTimeout(DEFAULT_TIMEOUT)
-                .pollingEvery(POLLING_INTERVAL)
-                .ignoring(NoSuchElementException.class, StaleElementReferenceException.class);
-    }
-
     /**
      * Java Script Executor
      * @return JavaScriptExecutor
@@ -103,12 +112,11 @@ public class SeleniumWrapper {
      * @return String
      */
     public static String getInnerText(WebElement element) {
-        waitForElementToBeVisible(element);
         try {
-            log.info("[SeleniumWrapper] Executing script to retrieve inner text for element");
-            return (String) getJavascriptExecutor().executeScript(
-                    "return arguments[0].innerText;", element
-            );
+            return timed("getInnerText", element, () -> (String) ElementWait.readWhenVisible(WebDriverFactory.getWebDriver(), element, "innerText", DEFAULT_TIMEOUT, POLLING_INTERVAL));
+        } catch (TimeoutException e) {
+            log.error("[SeleniumWrapper] Timeout while waiting for element visibility.");
+            throw e;
         } catch (Exception e) {
             log.error("[SeleniumWrapper] Error retrieving inner text for element");
             throw e;
@@ -122,7 +130,7 @@ public class SeleniumWrapper {
      */
     public static void clearInputBox(WebElement element) {
         try{
-            element.clear();
+            timed("clear", element, element::clear);
         } catch (NoSuchElementException ne){
             log.error(ERR_MESSAGE, element);
             throw ne;
@@ -138,9 +146,11 @@ public class SeleniumWrapper {
      */
     public static void inputText(WebElement element, String text) {
         try{
-            clickOnElement(element);
-            clearInputBox(element);
-            element.sendKeys(text);
+            timed("inputText", element, () -> {
+                clickOnElement(element);
+                clearInputBox(element);
+                element.sendKeys(text);
+            });
         } catch (NoSuchElementException ne){
             log.error(ERR_MESSAGE, element);
         }
@@ -154,7 +164,7 @@ public class SeleniumWrapper {
      */
     public static boolean isSelected(WebElement element) {
         try {
-            return waitForElementToBeVisible(element).isSelected();
+            return timed("isSelected", element, () -> waitForElementToBeVisible(element).isSelected());
         } catch (NoSuchElementException e) {
             log.error(ERR_MESSAGE, element);
             return false;
@@ -169,7 +179,7 @@ public class SeleniumWrapper {
 
     public static boolean isEnabled(WebElement element) {
         try {
-            return waitForElementToBeVisible(element).isEnabled();
+            return timed("isEnabled", element, () -> waitForElementToBeVisible(element).isEnabled());
         } catch (NoSuchElementException e) {
             log.error(ERR_MESSAGE, element);
             return false;
@@ -184,7 +194,7 @@ public class SeleniumWrapper {
      */
     public static boolean isDisplayed(WebElement element) {
         try {
-            return element.isDisplayed();
+            return timed("isDisplayed", element, element::isDisplayed);
         } catch (NoSuchElementException e) {
             log.error(ERR_MESSAGE, element);
             return false;
@@ -199,7 +209,7 @@ public class SeleniumWrapper {
      */
     public static boolean isElementExists(WebElement element) {
         try {
-            return element.isDisplayed();
+            return timed("isElementExists", element, element::isDisplayed);
         } catch (NoSuchElementException e) {
             log.error(ERR_MESSAGE, element);
             return false;
@@ -222,12 +232,14 @@ public class SeleniumWrapper {
      */
     public static void moveToElement(WebElement element) {
         try {
-            log.debug("[SeleniumWrapper] Waiting for element to be visible");
-            WebElement visibleElement = waitForElementToBeVisible(element);
-            log.debug("[SeleniumWrapper] Moving to the element");
-            getActions().scrollToElement(visibleElement).perform();
-            getActions().moveToElement(visibleElement).perform();
-            log.debug("[SeleniumWrapper] Moved to element successfully");
+            timed("moveToElement", element, () -> {
+                log.debug("[SeleniumWrapper] Waiting for element to be visible");
+                WebElement visibleElement = waitForElementToBeVisible(element);
+                log.debug("[SeleniumWrapper] Moving to the element");
+                getActions().scrollToElement(visibleElement).perform();
+                getActions().moveToElement(visibleElement).perform();
+                log.debug("[SeleniumWrapper] Moved to element successfully");
+            });
         } catch (TimeoutException e) {
             log.error("[SeleniumWrapper] Timeout while waiting for element to be visible");
             throw e;
@@ -243,7 +255,7 @@ public class SeleniumWrapper {
      */
     public static void scrollToElement(WebElement element) {
         try {
-            getJavascriptExecutor().executeScript("arguments[0].scrollIntoView(true);", waitForElementToBeVisible(element));
+            timed("scrollToElement", element, () -> getJavascriptExecutor().executeScript("arguments[0].scrollIntoView(true);", waitForElementToBeVisible(element)));
         } catch (Exception e) {
             log.error("[SeleniumWrapper] There was an error while trying to scroll to an element");
             throw e;
@@ -257,8 +269,10 @@ public class SeleniumWrapper {
      * @param offsetY - Y Co ordinate
      */
     public static void moveCursorToElement(WebElement element, int offsetX, int offsetY) {
-        Actions actions = getActions();
-        actions.moveToElement(element, offsetX, offsetY).perform();
+        timed("moveCursor", element, () -> {
+            Actions actions = getActions();
+            actions.moveToElement(element, offsetX, offsetY).perform();
+        });
     }
 
 
@@ -268,9 +282,11 @@ public class SeleniumWrapper {
      */
     public static String getCurrentUrl() {
         try {
-            String currentUrl = WebDriverFactory.getWebDriver().getCurrentUrl();
-            log.debug("[SeleniumWrapper] Current URL: \"{}\"", currentUrl);
-            return currentUrl;
+            return timed("getCurrentUrl", null, () -> {
+                String currentUrl = WebDriverFactory.getWebDriver().getCurrentUrl();
+                log.debug("[SeleniumWrapper] Current URL: \"{}\"", currentUrl);
+                return currentUrl;
+            });
         } catch (Exception e) {
             log.error("[SeleniumWrapper] Error retrieving current URL");
             throw e;
@@ -283,9 +299,11 @@ public class SeleniumWrapper {
      */
     public static String getPageTitle() {
         try {
-            String title = WebDriverFactory.getWebDriver().getTitle();
-            log.debug("[SeleniumWrapper] Page title: \"{}\"", title);
-            return title;
+            return timed("getPageTitle", null, () -> {
+                String title = WebDriverFactory.getWebDriver().getTitle();
+                log.debug("[SeleniumWrapper] Page title: \"{}\"", title);
+                return title;
+            });
         } catch (Exception e) {
             log.error("[SeleniumWrapper] Error retrieving page title : \"{}\"", e.getMessage());
             return "";
@@ -299,17 +317,19 @@ public class SeleniumWrapper {
     public static void switchToNewWindow() {
         WebDriver driver = WebDriverFactory.getWebDriver();
         try {
-            Set<String> windowHandles = driver.getWindowHandles();
-            String currentWindowHandle = driver.getWindowHandle();
-            for (String handle : windowHandles) {
-                if (!handle.equals(currentWindowHandle)) {
-                    driver.switchTo().window(handle);
-                    log.debug("[SwitchToNewTab] Switched to new tab with handle: {}", handle);
-                    return;
+            timed("switchToNewWindow", null, () -> {
+                Set<String> windowHandles = driver.getWindowHandles();
+                String currentWindowHandle = driver.getWindowHandle();
+                for (String handle : windowHandles) {
+                    if (!handle.equals(currentWindowHandle)) {
+                        driver.switchTo().window(handle);
+                        log.debug("[SwitchToNewTab] Switched to new tab with handle: {}", handle);
+                        return;
+                    }
                 }
-            }
-            log.warn("[SeleniumWrapper] No new tab found to switch to");
-            throw new RuntimeException("[SeleniumWrapper] No new tab found to switch to");
+                log.warn("[SeleniumWrapper] No new tab found to switch to");
+                throw new RuntimeException("[SeleniumWrapper] No new tab found to switch to");
+            });
         } catch (Exception e) {
             log.error("[SeleniumWrapper] Error occurred while switching to new tab", e);
             throw e;
@@ -323,21 +343,23 @@ public class SeleniumWrapper {
     public static void closeCurrentWindowAndSwitchToMain() {
         WebDriver driver = WebDriverFactory.getWebDriver();
         try {
-            Set<String> windowHandles = driver.getWindowHandles();
-            String currentWindowHandle = driver.getWindowHandle();
-            String mainWindowHandle = windowHandles.iterator().next(); // Get the first (main) window handle
-
-            // If the current window is the main window, do nothing
-            if (currentWindowHandle.equals(mainWindowHandle)) {
-                log.debug("[CloseWindow] Current window is the main window. No action taken.");
-                return;
-            }
+            timed("closeWindow", null, () -> {
+                Set<String> windowHandles = driver.getWindowHandles();
+                String currentWindowHandle = driver.getWindowHandle();
+                String mainWindowHandle = windowHandles.iterator().next(); // Get the first (main) window handle
+
+                // If the current window is the main window, do nothing
+                if (currentWindowHandle.equals(mainWindowHandle)) {
+                    log.debug("[CloseWindow] Current window is the main window. No action taken.");
+                    return;
+                }
 
-            driver.close();
-            log.debug("[SeleniumWrapper] Closed the current window: {}", currentWindowHandle);
+                driver.close();
+                log.debug("[SeleniumWrapper] Closed the current window: {}", currentWindowHandle);
 
-            driver.switchTo().window(mainWindowHandle);
-            log.debug("[SeleniumWrapper] Switched back to the main window: {}", mainWindowHandle);
+                driver.switchTo().window(mainWindowHandle);
+                log.debug("[SeleniumWrapper] Switched back to the main window: {}", mainWindowHandle);
+            });
         } catch (Exception e) {
             log.error("[SeleniumWrapper] Error occurred while closing the window", e);
             throw e;
@@ -350,15 +372,71 @@ public class SeleniumWrapper {
      * @param element WebElement
      */
     public static void hoverOnElement(WebElement element) {
-        Actions actions = new Actions(WebDriverFactory.getWebDriver());
-        actions.moveToElement(element).perform();
+        timed("hover", element, () -> {
+            Actions actions = new Actions(WebDriverFactory.getWebDriver());
+            actions.moveToElement(element).perform();
+        });
     }
 
 
 
+    /**
+     * Open the url and record the metrics of the page it leaves for the current test
+     * @param url String
+     */
     public static void openUrl(String url){
+        TestDependencies.record(null);
         WebDriver driver = WebDriverFactory.getWebDriver();
-        driver.get(url);
+        PageMetricsReport.pageLeft();
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            driver.get(url);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            LatencyRecorder.record("openUrl", LatencyRecorder.NONE, url.split("[?#]")[0], start);
+            EventBuffer.recordNavigation(url, failure, start);
+        }
+        if (Config.PAGE_METRICS_ENABLED) {
+            PageMetricsReport.pageOpened(driver);
+        }
+    }
+
+    /**
+     * Run a wrapper action and record its latency and event, tagged with the page and locator of the element when it is a page element
+     * @param action name of the action
+     * @param element element the action is on, or null
+     * @param body the action
+     * @return what the action returned
+     */
+    private static <T> T timed(String action, @Nullable WebElement element, Supplier<T> body) {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return body.get();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (element instanceof CachedElement) {
+                Class<?> pageClass = ((CachedElement) element).getPageClass();
+                By locator = ((CachedElement) element).getLocator();
+                LatencyRecorder.record(action, pageClass == null ? LatencyRecorder.NONE : pageClass.getSimpleName(), locator.toString(), start);
+                EventBuffer.record(action, pageClass, locator, failure, start);
+            } else {
+                LatencyRecorder.record(action, LatencyRecorder.NONE, LatencyRecorder.NONE, start);
+                EventBuffer.record(action, null, element, failure, start);
+            }
+        }
+    }
+
+    private static void timed(String action, @Nullable WebElement element, Runnable body) {
+        timed(action, element, () -> {
+            body.run();
+            return null;
+        });
     }
 
 }
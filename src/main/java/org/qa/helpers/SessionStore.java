@@ -0,0 +1,194 @@
+package org.qa.helpers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.qa.common.Config;
+import org.qa.listeners.TestDependencies;
+import org.qa.metrics.PageMetricsReport;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authenticated session state (cookies, localStorage and sessionStorage) captured once per user and
+ * environment after a real UI login, and injected into later sessions so they can skip the login flow.
+ * State is dropped when it expires or when a restored session is redirected back to the login page.
+ * Only one thread per user and environment performs the real login, the others wait and restore its state
+ */
+@Slf4j
+public class SessionStore {
+
+    private SessionStore() {}
+
+    private static final Duration LANDING_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String CAPTURE_STORAGE_SCRIPT =
+            "function dump(s) { var o = {}; for (var i = 0; i < s.length; i++) { var k = s.key(i); o[k] = s.getItem(k); } return o; }" +
+            "return { local: dump(window.localStorage), session: dump(window.sessionStorage) };";
+
+    private static final String RESTORE_STORAGE_SCRIPT =
+            "var local = arguments[0], session = arguments[1];" +
+            "Object.keys(local).forEach(function (k) { window.localStorage.setItem(k, local[k]); });" +
+            "Object.keys(session).forEach(function (k) { window.sessionStorage.setItem(k, session[k]); });";
+
+    private static final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private static final Map<String, Object> loginLocks = new ConcurrentHashMap<>();
+    /** Classes the UI login of each session went through, recorded for the tests that restore the session instead */
+    private static final Map<String, Set<String>> loginDependencies = new ConcurrentHashMap<>();
+
+    /**
+     * This method logs the user in, by restoring a stored session when there is a valid one, otherwise by
+     * running the UI login and storing the resulting session for later tests
+     * @param driver WebDriver
+     * @param loginUrl URL of the login page, its origin identifies the environment
+     * @param userName user the session belongs to
+     * @param uiLogin the real login flow, expected to end on the page a logged-in user lands on
+     */
+    public static void login(WebDriver driver, String loginUrl, String userName, Runnable uiLogin) {
+        TestDependencies.record(null);
+        if (!Config.SESSION_STORE_ENABLED) {
+            uiLogin.run();
+            return;
+        }
+        String key = userName + "@" + origin(loginUrl);
+        if (restore(driver, key, loginUrl)) {
+            TestDependencies.recordAll(loginDependencies.getOrDefault(key, Set.of()));
+            return;
+        }
+        synchronized (loginLocks.computeIfAbsent(key, k -> new Object())) {
+            // Another thread may have logged in while this one was waiting
+            if (restore(driver, key, loginUrl)) {
+                TestDependencies.recordAll(loginDependencies.getOrDefault(key, Set.of()));
+                return;
+            }
+            loginDependencies.put(key, TestDependencies.recording(uiLogin));
+            capture(driver, key, loginUrl);
+        }
+    }
+
+    /**
+     * This method drops the stored session of a user, e.g. after the test logged out or changed the user's state
+     * @param loginUrl URL of the login page
+     * @param userName user the session belongs to
+     */
+    public static void invalidate(String loginUrl, String userName) {
+        sessions.remove(userName + "@" + origin(loginUrl));
+    }
+
+    public static void invalidateAll() {
+        sessions.clear();
+    }
+
+    private static void capture(WebDriver driver, String key, String loginUrl) {
+        try {
+            // The login may have been submitted from a script, so the navigation can still be in progress
+            new WebDriverWait(driver, LANDING_TIMEOUT).until(d -> !isLoginPage(d.getCurrentUrl(), loginUrl));
+            String landingUrl = driver.getCurrentUrl();
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, String>> storage = (Map<String, Map<String, String>>) ((JavascriptExecutor) driver).executeScript(CAPTURE_STORAGE_SCRIPT);
+            List<Cookie> cookies = new ArrayList<>(driver.manage().getCookies());
+            sessions.put(key, new SessionState(landingUrl, cookies, storage.get("local"), storage.get("session"), expiry(cookies)));
+            log.info("[SessionStore] Stored session of {} ({} cookies, landing on {})", key, cookies.size(), landingUrl);
+        } catch (TimeoutException e) {
+            log.warn("[SessionStore] Still on the login page after logging in, session of {} is not stored", key);
+        } catch (WebDriverException e) {
+            log.warn("[SessionStore] Could not capture session of {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Cookies can only be set for the page's own domain and storage only for the loaded origin, so the login page
+     * is opened first, the state is injected there and then the landing page of the stored session is opened
+     * @return true when the driver is now on the landing page as a logged-in user
+     */
+    private static boolean restore(WebDriver driver, String key, String loginUrl) {
+        SessionState state = sessions.get(key);
+        if (state == null) {
+            return false;
+        }
+        if (state.isExpired()) {
+            log.info("[SessionStore] Stored session of {} has expired", key);
+            sessions.remove(key, state);
+            return false;
+        }
+        try {
+            PageMetricsReport.pageLeft();
+            driver.get(loginUrl);
+            for (Cookie cookie : state.cookies) {
+                if (cookie.getExpiry() == null || cookie.getExpiry().after(new Date())) {
+                    driver.manage().addCookie(cookie);
+                }
+            }
+            ((JavascriptExecutor) driver).executeScript(RESTORE_STORAGE_SCRIPT, state.localStorage, state.sessionStorage);
+            driver.get(state.landingUrl);
+            if (isLoginPage(driver.getCurrentUrl(), loginUrl)) {
+                log.info("[SessionStore] Restored session of {} was redirected to the login page", key);
+                sessions.remove(key, state);
+                driver.manage().deleteAllCookies();
+                return false;
+            }
+            return true;
+        } catch (WebDriverException e) {
+            log.warn("[SessionStore] Could not restore session of {}: {}", key, e.getMessage());
+            sessions.remove(key, state);
+            return false;
+        }
+    }
+
+    /**
+     * The stored session is valid for {@link Config#SESSION_STORE_TTL_SECONDS} or until its first cookie expires
+     */
+    private static long expiry(List<Cookie> cookies) {
+        long expiresAt = System.currentTimeMillis() + Config.SESSION_STORE_TTL_SECONDS * 1000L;
+        for (Cookie cookie : cookies) {
+            if (cookie.getExpiry() != null) {
+                expiresAt = Math.min(expiresAt, cookie.getExpiry().getTime());
+            }
+        }
+        return expiresAt;
+    }
+
+    private static boolean isLoginPage(String currentUrl, String loginUrl) {
+        return stripTrailingSlash(currentUrl.split("[?#]")[0]).equals(stripTrailingSlash(loginUrl.split("[?#]")[0]));
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static String origin(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getAuthority();
+    }
+
+    private static final class SessionState {
+        private final String landingUrl;
+        private final List<Cookie> cookies;
+        private final Map<String, String> localStorage;
+        private final Map<String, String> sessionStorage;
+        private final long expiresAtMillis;
+
+        private SessionState(String landingUrl, List<Cookie> cookies, Map<String, String> localStorage, Map<String, String> sessionStorage, long expiresAtMillis) {
+            this.landingUrl = landingUrl;
+            this.cookies = List.copyOf(cookies);
+            this.localStorage = Map.copyOf(localStorage);
+            this.sessionStorage = Map.copyOf(sessionStorage);
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAtMillis;
+        }
+    }
+}
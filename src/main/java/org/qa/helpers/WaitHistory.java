@@ -0,0 +1,171 @@
+package org.qa.helpers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.WebElement;
+import org.qa.common.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How long the elements of each page and locator took to become visible, as an exponentially weighted mean and mean
+ * deviation (the way TCP estimates round trip times). The mean sets the first interval of the polling wait, and an
+ * appearance far above mean + 4 deviations is reported as unusually slow. The history is kept in
+ * {@link Config#WAIT_HISTORY_FILE} so later runs start with what earlier runs learned
+ */
+@Slf4j
+public class WaitHistory {
+
+    private WaitHistory() {}
+
+    /** Weight of a new observation in the mean, 1/8 as in TCP */
+    private static final double MEAN_WEIGHT = 0.125;
+    /** Weight of a new observation in the deviation, 1/4 as in TCP */
+    private static final double DEVIATION_WEIGHT = 0.25;
+    private static final double SLOW_DEVIATIONS = 4;
+
+    private static final Duration MIN_INTERVAL = Duration.ofMillis(Config.WAIT_MIN_POLL_MILLIS);
+
+    private static final Map<String, Timing> history = load();
+
+    /**
+     * @param element element to wait for
+     * @return history key of a page element, or null for elements that are not page elements
+     */
+    @Nullable
+    static String key(WebElement element) {
+        if (!Config.WAIT_HISTORY_ENABLED || !(element instanceof CachedElement)) {
+            return null;
+        }
+        Class<?> pageClass = ((CachedElement) element).getPageClass();
+        return (pageClass == null ? "" : pageClass.getSimpleName() + " ") + ((CachedElement) element).getLocator();
+    }
+
+    /**
+     * This method returns the first polling interval for an element, half of its usual appearance time
+     * @param key history key, or null
+     * @param maxInterval longest interval of the wait
+     * @return interval between {@link Config#WAIT_MIN_POLL_MILLIS} and maxInterval
+     */
+    static Duration startInterval(@Nullable String key, Duration maxInterval) {
+        Timing timing = key == null ? null : history.get(key);
+        if (timing == null) {
+            return MIN_INTERVAL.compareTo(maxInterval) < 0 ? MIN_INTERVAL : maxInterval;
+        }
+        long millis = Math.max(Config.WAIT_MIN_POLL_MILLIS, Math.round(timing.mean() / 2));
+        return Duration.ofMillis(Math.min(millis, maxInterval.toMillis()));
+    }
+
+    /**
+     * This method adds the time an element took to become visible and warns when it was unusually slow
+     * @param key history key, or null to ignore the observation
+     * @param millis time from the start of the wait until the element was visible
+     */
+    static void observe(@Nullable String key, double millis) {
+        if (key == null) {
+            return;
+        }
+        Timing timing = history.computeIfAbsent(key, k -> new Timing());
+        String slow = timing.observe(millis);
+        if (slow != null) {
+            log.warn("[WaitHistory] {} took {} ms to become visible, {}", key, Math.round(millis), slow);
+        }
+    }
+
+    /**
+     * This method writes the history back to its file, it is called once at the end of the suite
+     */
+    public static void save() {
+        if (history.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Number>> snapshot = new TreeMap<>();
+        history.forEach((key, timing) -> snapshot.put(key, timing.toMap()));
+        Path file = Paths.get(Config.WAIT_HISTORY_FILE);
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "wait-history", ".tmp");
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(temp.toFile(), snapshot);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("[WaitHistory] Appearance times of {} elements written to {}", snapshot.size(), file);
+        } catch (IOException e) {
+            log.warn("[WaitHistory] Could not write wait history {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static Map<String, Timing> load() {
+        Map<String, Timing> loaded = new ConcurrentHashMap<>();
+        Path file = Paths.get(Config.WAIT_HISTORY_FILE);
+        if (!Config.WAIT_HISTORY_ENABLED || !Files.exists(file)) {
+            return loaded;
+        }
+        try {
+            Map<String, Map<String, Number>> stored = new ObjectMapper().readValue(file.toFile(), new TypeReference<>() {});
+            stored.forEach((key, values) -> loaded.put(key, Timing.fromMap(values)));
+            log.info("[WaitHistory] Loaded appearance times of {} elements from {}", loaded.size(), file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("[WaitHistory] Could not read wait history {}, starting a new one: {}", file, e.getMessage());
+        }
+        return loaded;
+    }
+
+    private static class Timing {
+        private double mean;
+        private double deviation;
+        private long samples;
+
+        private synchronized double mean() {
+            return mean;
+        }
+
+        /**
+         * @return why the observation is slow, or null
+         */
+        @Nullable
+        private synchronized String observe(double millis) {
+            String slow = null;
+            double limit = mean + SLOW_DEVIATIONS * deviation;
+            if (samples >= Config.WAIT_HISTORY_MIN_SAMPLES && millis > limit && millis - mean > Config.WAIT_SLOW_MIN_MILLIS) {
+                slow = String.format("usually %d ms (limit %d ms over %d waits)", Math.round(mean), Math.round(limit), samples);
+            }
+            if (samples == 0) {
+                mean = millis;
+                deviation = millis / 2;
+            } else {
+                deviation += DEVIATION_WEIGHT * (Math.abs(millis - mean) - deviation);
+                mean += MEAN_WEIGHT * (millis - mean);
+            }
+            samples++;
+            return slow;
+        }
+
+        private synchronized Map<String, Number> toMap() {
+            Map<String, Number> values = new LinkedHashMap<>();
+            values.put("meanMillis", Math.round(mean * 10) / 10.0);
+            values.put("deviationMillis", Math.round(deviation * 10) / 10.0);
+            values.put("samples", samples);
+            return values;
+        }
+
+        private static Timing fromMap(Map<String, Number> values) {
+            Timing timing = new Timing();
+            timing.mean = values.getOrDefault("meanMillis", 0).doubleValue();
+            timing.deviation = values.getOrDefault("deviationMillis", 0).doubleValue();
+            timing.samples = values.getOrDefault("samples", 0).longValue();
+            return timing;
+        }
+    }
+}
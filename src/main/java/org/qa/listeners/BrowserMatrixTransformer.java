@@ -0,0 +1,31 @@
+package org.qa.listeners;
+
+import org.qa.driverfactory.Browser;
+import org.testng.IAnnotationTransformer;
+import org.testng.annotations.ITestAnnotation;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Expands a test with several browsers on its {@link Browser} annotation into one invocation per browser,
+ * run in parallel. With a data provider every invocation runs all rows, {@link TestListener} hands each row its
+ * browsers in turn.
+ * Annotation transformers have to be known before the tests are parsed, so this one is registered through
+ * META-INF/services/org.testng.ITestNGListener instead of {@code @Listeners}
+ */
+public class BrowserMatrixTransformer implements IAnnotationTransformer {
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void transform(ITestAnnotation annotation, Class testClass, Constructor testConstructor, Method testMethod) {
+        if (testMethod == null || !testMethod.isAnnotationPresent(Browser.class)) {
+            return;
+        }
+        int browsers = testMethod.getAnnotation(Browser.class).value().length;
+        if (browsers > 1) {
+            annotation.setInvocationCount(annotation.getInvocationCount() * browsers);
+            annotation.setThreadPoolSize(Math.max(annotation.getThreadPoolSize(), browsers));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.qa.listeners;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.qa.common.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the classes each test class goes through, the page objects it creates and the test modules and helpers
+ * on the way there. It is collected from the call stack of {@link org.qa.helpers.SeleniumWrapper#getPage(Class)} and
+ * openUrl, plus the login flow skipped by a restored {@link org.qa.helpers.SessionStore} session, and merged into
+ * {@link Config#TEST_DEPENDENCY_INDEX}, where the affectedTests Gradle task looks up which tests a change can break
+ */
+@Slf4j
+public class TestDependencies {
+
+    private TestDependencies() {}
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    /** Libraries and the JDK are never part of a change to this repository */
+    private static final List<String> EXTERNAL_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.", "com.sun.", "org.testng.", "org.openqa.", "okhttp3.", "com.fasterxml.");
+
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+    private static final ThreadLocal<Set<String>> recording = new ThreadLocal<>();
+    private static final Map<String, Set<String>> dependencies = new ConcurrentHashMap<>();
+
+    static void startTest(String testClass) {
+        currentTest.set(testClass);
+    }
+
+    static void finishTest() {
+        currentTest.remove();
+    }
+
+    /**
+     * This method records the page and the classes of the current call stack for the running test
+     * @param pageClass page object created, or null for a navigation
+     */
+    public static void record(@Nullable Class<?> pageClass) {
+        String test = currentTest.get();
+        Set<String> recorded = recording.get();
+        if (test == null && recorded == null) {
+            return;
+        }
+        Set<String> classes = new HashSet<>();
+        if (pageClass != null) {
+            classes.add(topLevelName(pageClass));
+        }
+        STACK_WALKER.forEach(frame -> {
+            String name = topLevelName(frame.getDeclaringClass());
+            if (!name.equals(test) && !name.equals(TestDependencies.class.getName()) && EXTERNAL_PACKAGES.stream().noneMatch(name::startsWith)) {
+                classes.add(name);
+            }
+        });
+        if (recorded != null) {
+            recorded.addAll(classes);
+        }
+        recordAll(classes);
+    }
+
+    /**
+     * This method records classes for the running test that its call stack does not show, e.g. the pages of a
+     * login flow that was skipped because a stored session was restored
+     * @param classes names of top-level classes
+     */
+    public static void recordAll(Collection<String> classes) {
+        String test = currentTest.get();
+        if (test == null || classes.isEmpty()) {
+            return;
+        }
+        dependencies.computeIfAbsent(test, t -> ConcurrentHashMap.newKeySet()).addAll(classes);
+    }
+
+    /**
+     * This method runs an action and returns the classes it recorded, so they can be recorded again for later
+     * tests that skip the action
+     * @param action action to run on the current thread
+     * @return names of the top-level classes recorded while the action ran
+     */
+    public static Set<String> recording(Runnable action) {
+        Set<String> outer = recording.get();
+        Set<String> recorded = new HashSet<>();
+        recording.set(recorded);
+        try {
+            action.run();
+        } finally {
+            if (outer == null) {
+                recording.remove();
+            } else {
+                outer.addAll(recorded);
+                recording.set(outer);
+            }
+        }
+        return recorded;
+    }
+
+    /**
+     * This method merges the dependencies recorded in this run into the index. Entries are only added,
+     * so a test filtered out of this run keeps what earlier runs recorded for it
+     */
+    public static void save() {
+        if (dependencies.isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(Config.TEST_DEPENDENCY_INDEX);
+        Map<String, Set<String>> index = new TreeMap<>();
+        try {
+            if (Files.exists(file)) {
+                index.putAll(new ObjectMapper().readValue(file.toFile(), new TypeReference<Map<String, TreeSet<String>>>() {}));
+            }
+        } catch (IOException e) {
+            log.warn("[TestDependencies] Could not read dependency index {}, writing a new one: {}", file, e.getMessage());
+        }
+        dependencies.forEach((test, classes) -> index.computeIfAbsent(test, t -> new TreeSet<>()).addAll(classes));
+        dependencies.clear();
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "test-dependencies", ".tmp");
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(temp.toFile(), index);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("[TestDependencies] Dependencies of {} test classes written to {}", index.size(), file);
+        } catch (IOException e) {
+            log.warn("[TestDependencies] Could not write dependency index {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Nested classes and lambdas live in the source file of their top-level class
+     */
+    private static String topLevelName(Class<?> type) {
+        Class<?> topLevel = type;
+        while (topLevel.getEnclosingClass() != null) {
+            topLevel = topLevel.getEnclosingClass();
+        }
+        String name = topLevel.getName();
+        int lambda = name.indexOf("$$");
+        return lambda > 0 ? name.substring(0, lambda) : name;
+    }
+}
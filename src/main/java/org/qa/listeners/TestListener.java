@@ -1,36 +1,209 @@
 package org.qa.listeners;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.WebDriver;
+import org.qa.artifacts.ArtifactWriter;
+import org.qa.artifacts.FailureArtifacts;
+import org.qa.common.Config;
 import org.qa.driverfactory.Browser;
-import org.testng.ITestContext;
+import org.qa.driverfactory.BrowserProfile;
+import org.qa.driverfactory.DriverLifecycle;
+import org.qa.driverfactory.DriverPool;
+import org.qa.driverfactory.NetworkInterception;
+import org.qa.driverfactory.NetworkProfile;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
+import org.testng.SkipException;
 import org.qa.driverfactory.WebDriverFactory;
+import org.qa.helpers.WaitHistory;
+import org.qa.metrics.EventBuffer;
+import org.qa.metrics.LatencyRecorder;
+import org.qa.metrics.PageMetrics;
+import org.qa.metrics.PageMetricsReport;
+import org.qa.metrics.PerfBaseline;
+import org.qa.metrics.PerfBudgets;
+import org.qa.metrics.TestHistory;
 
-public class TestListener implements ITestListener {
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+public class TestListener implements ITestListener, ISuiteListener, IInvokedMethodListener {
 
     private static final ThreadLocal<WebDriver> driverThreadLocal = new ThreadLocal<>();
+    private static final String DRIVER_START_FAILURE = "driver.startFailure";
+    private static final ObjectWriter ROW_JSON = new ObjectMapper().disable(SerializationFeature.FAIL_ON_EMPTY_BEANS).writer();
+
+    /** Invocations so far of every row of a browser matrix test, by test method and data provider row */
+    private static final Map<String, AtomicInteger> matrixInvocations = new ConcurrentHashMap<>();
+    /** Browsers of failed invocations that are retried, the retry runs on the same browser */
+    private static final Map<String, Queue<String>> matrixRetries = new ConcurrentHashMap<>();
 
+    /**
+     * Only tests annotated with {@link Browser} get a session, other tests run without a browser.
+     * A session that fails to start is kept on the result and skips that test in {@link #beforeInvocation},
+     * an exception thrown here would abort the whole run
+     */
     @Override
     public void onTestStart(ITestResult result) {
-        if (result.getMethod().getConstructorOrMethod().getMethod().isAnnotationPresent(Browser.class)) {
-            Browser browserAnnotation = result.getMethod().getConstructorOrMethod().getMethod().getAnnotation(Browser.class);
-            WebDriverFactory.setWebDriver(browserAnnotation.value());
-            driverThreadLocal.set(WebDriverFactory.getWebDriver());
+        TestDependencies.startTest(result.getTestClass().getName());
+        EventBuffer.clear();
+        Browser browserAnnotation = result.getMethod().getConstructorOrMethod().getMethod().getAnnotation(Browser.class);
+        if (browserAnnotation == null) {
             return;
         }
-        WebDriverFactory.setWebDriver("chrome");
-        driverThreadLocal.set(WebDriverFactory.getWebDriver());
+        String browser = browserFor(result, browserAnnotation.value());
+        try {
+            WebDriverFactory.setWebDriver(browser, BrowserProfile.resolve(browserAnnotation.profiles()),
+                    NetworkProfile.named(Config.BROWSER_NETWORK_PROFILE));
+            driverThreadLocal.set(WebDriverFactory.getWebDriver());
+        } catch (RuntimeException e) {
+            log.error("[TestListener] {}: could not start {}: {}", result.getName(), browser, e.getMessage());
+            result.setAttribute(DRIVER_START_FAILURE, e);
+        }
+    }
 
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult result) {
+        Object failure = result.getAttribute(DRIVER_START_FAILURE);
+        if (method.isTestMethod() && failure != null) {
+            throw new SkipException("Browser session could not be started", (Throwable) failure);
+        }
     }
 
     public static WebDriver getDriver() {
         return driverThreadLocal.get();
     }
 
+    /**
+     * Performance budgets are checked as soon as the test method returns, a broken budget can still turn
+     * the result into a failure here before TestNG reports it. The last page of the test is measured here,
+     * before its driver goes back to the pool
+     */
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        PageMetricsReport.pageLeft();
+        List<PageMetrics> pageMetrics = PageMetricsReport.takeTestMetrics();
+        if (!pageMetrics.isEmpty()) {
+            result.setAttribute("pageMetrics", pageMetrics);
+        }
+        PerfBudgets.enforce(result, pageMetrics);
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        TestHistory.record(result);
+        releaseDriver(result);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        TestHistory.record(result);
+        FailureArtifacts.capture(result);
+        releaseDriver(result);
+    }
+
     @Override
-    public void onFinish(ITestContext context) {
+    public void onTestSkipped(ITestResult result) {
+        Object browser = result.getAttribute("browser");
+        if (result.wasRetried() && browser != null) {
+            matrixRetries.computeIfAbsent(matrixKey(result), k -> new ConcurrentLinkedQueue<>()).add(browser.toString());
+        }
+        FailureArtifacts.capture(result);
+        releaseDriver(result);
+    }
+
+    /**
+     * All sessions are quit once the whole suite is done, whichever thread they were started on
+     */
+    @Override
+    public void onFinish(ISuite suite) {
         WebDriverFactory.quitDriver();
         driverThreadLocal.remove();
+        DriverPool.getInstance().shutdown();
+        DriverLifecycle.getInstance().quitAll();
+        matrixInvocations.clear();
+        matrixRetries.clear();
+        PageMetricsReport.write();
+        LatencyRecorder.write();
+        PerfBaseline.save();
+        WaitHistory.save();
+        TestHistory.save();
+        TestDependencies.save();
+        if (Config.EVENTS_DUMP_ON_FINISH) {
+            EventBuffer.dumpAll();
+        }
+        ArtifactWriter.getInstance().drain();
+    }
+
+    /**
+     * Invocations of a test with several browsers, expanded by {@link BrowserMatrixTransformer}, take the browsers in turn.
+     * Turns are counted per data provider row, so every row runs once on every browser, and a retry keeps the browser
+     * of the invocation it repeats
+     */
+    private String browserFor(ITestResult result, String[] browsers) {
+        if (browsers.length == 1) {
+            return browsers[0];
+        }
+        String key = matrixKey(result);
+        Queue<String> retries = matrixRetries.get(key);
+        String browser = retries == null ? null : retries.poll();
+        if (browser == null) {
+            int invocation = matrixInvocations.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+            browser = browsers[invocation % browsers.length];
+        }
+        result.setAttribute("browser", browser);
+        result.setTestName(result.getMethod().getMethodName() + "[" + browser + "]");
+        return browser;
+    }
+
+    /**
+     * Test method, instance and data provider row of an invocation. The data provider runs again for every invocation,
+     * so rows are told apart by the values of their parameters, not by the objects holding them
+     */
+    private static String matrixKey(ITestResult result) {
+        String row;
+        try {
+            row = ROW_JSON.writeValueAsString(result.getParameters());
+        } catch (JsonProcessingException e) {
+            row = Arrays.deepToString(result.getParameters());
+        }
+        return result.getMethod().getQualifiedName() + "@" + System.identityHashCode(result.getInstance()) + "#" + row;
+    }
+
+    /**
+     * Hand the session of the current thread back to the pool so the next test can reuse it
+     * The requests blocked by its network profile are recorded on its result first
+     */
+    private void releaseDriver(ITestResult result) {
+        NetworkInterception interception = WebDriverFactory.getNetworkInterception();
+        if (interception != null) {
+            result.setAttribute("network.profile", interception.getProfile().getName());
+            result.setAttribute("network.blockedRequests", interception.getBlockedRequests());
+            result.setAttribute("network.stubbedRequests", interception.getStubbedRequests());
+            result.setAttribute("network.estimatedBytesSaved", interception.getEstimatedBytesSaved());
+            log.info("[TestListener] {}: {}", result.getName(), interception.describe());
+        }
+        TestDependencies.finishTest();
+        WebDriverFactory.releaseDriver();
+        if (WebDriverFactory.getWebDriver() == null) {
+            driverThreadLocal.remove();
+        }
     }
 
-}
\ No newline at end of file
+}
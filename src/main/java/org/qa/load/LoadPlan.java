@@ -0,0 +1,96 @@
+package org.qa.load;
+
+import lombok.Getter;
+import org.qa.common.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open-model load: arrivals are scheduled at the target rate whether or not earlier requests have finished,
+ * like real users who do not wait for each other.
+ * The rate grows linearly from zero to {@link #getTargetRps()} during the ramp-up, then holds for the duration.
+ * Plans are immutable, the with* methods return a copy
+ */
+@Getter
+public class LoadPlan {
+
+    private final double targetRps;
+    private final Duration rampUp;
+    private final Duration duration;
+    private final int maxInFlight;
+    private final List<LoadScenario> scenarios;
+
+    private LoadPlan(double targetRps, Duration rampUp, Duration duration, int maxInFlight, List<LoadScenario> scenarios) {
+        this.targetRps = targetRps;
+        this.rampUp = rampUp;
+        this.duration = duration;
+        this.maxInFlight = maxInFlight;
+        this.scenarios = List.copyOf(scenarios);
+    }
+
+    /**
+     * @param targetRps arrivals per second once ramped up
+     * @param duration how long the target rate is held, after the ramp-up
+     * @return plan without ramp-up and scenarios
+     */
+    public static LoadPlan of(double targetRps, Duration duration) {
+        if (targetRps <= 0) {
+            throw new IllegalArgumentException("[LoadPlan] Target RPS must be positive, was " + targetRps);
+        }
+        return new LoadPlan(targetRps, Duration.ZERO, duration, Config.LOAD_MAX_IN_FLIGHT, List.of());
+    }
+
+    public LoadPlan withRampUp(Duration rampUp) {
+        return new LoadPlan(targetRps, rampUp, duration, maxInFlight, scenarios);
+    }
+
+    /**
+     * @param maxInFlight arrivals while this many requests are still running are dropped and reported, instead of
+     *                    slowing down the arrival rate
+     */
+    public LoadPlan withMaxInFlight(int maxInFlight) {
+        return new LoadPlan(targetRps, rampUp, duration, maxInFlight, scenarios);
+    }
+
+    /**
+     * @param name scenario name used in the report
+     * @param weight relative share of the arrivals
+     * @param action calls made by one arrival
+     */
+    public LoadPlan withScenario(String name, int weight, LoadScenario.Action action) {
+        List<LoadScenario> extended = new ArrayList<>(scenarios);
+        extended.add(new LoadScenario(name, weight, action));
+        return new LoadPlan(targetRps, rampUp, duration, maxInFlight, extended);
+    }
+
+    /**
+     * @return number of arrivals the plan schedules
+     */
+    public long getArrivals() {
+        return (long) Math.floor(targetRps * (seconds(rampUp) / 2 + seconds(duration)));
+    }
+
+    /**
+     * Offset of the n-th arrival (0-based) from the start of the run.
+     * During the ramp-up n arrivals take {@code sqrt(2 * rampUp * n / targetRps)}, after it one every {@code 1 / targetRps}
+     * @param n arrival number
+     * @return offset in nanoseconds
+     */
+    long arrivalOffsetNanos(long n) {
+        double ramp = seconds(rampUp);
+        double rampArrivals = targetRps * ramp / 2;
+        double offset = n < rampArrivals ? Math.sqrt(2 * ramp * n / targetRps) : ramp + (n - rampArrivals) / targetRps;
+        return (long) (offset * 1_000_000_000L);
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toNanos() / 1_000_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f rps, ramp-up %ss, duration %ss, %d scenarios", targetRps, rampUp.toSeconds(), duration.toSeconds(), scenarios.size());
+    }
+}
@@ -0,0 +1,192 @@
+package org.qa.load;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.jetbrains.annotations.Nullable;
+import org.qa.common.Config;
+import org.qa.metrics.LatencyRecorder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of a {@link LoadRunner} run: throughput, failures and response-time percentiles per scenario and in total.
+ * Times are in milliseconds, response time counts from the planned start of each arrival
+ */
+@Slf4j
+@Getter
+public class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final String plan;
+    private final double targetRps;
+    private final double elapsedSeconds;
+    private final Scenario total;
+    private final List<Scenario> scenarios;
+
+    LoadReport(LoadPlan plan, long elapsedNanos, List<Scenario> scenarios) {
+        this.plan = plan.toString();
+        this.targetRps = plan.getTargetRps();
+        this.elapsedSeconds = elapsedNanos / 1_000_000_000.0;
+        this.scenarios = List.copyOf(scenarios);
+        this.total = Scenario.merge("total", scenarios, elapsedNanos);
+    }
+
+    /**
+     * @param name scenario name
+     * @return the scenario, or null when the plan has none by that name
+     */
+    @Nullable
+    public Scenario getScenario(String name) {
+        return scenarios.stream().filter(scenario -> scenario.getName().equals(name)).findFirst().orElse(null);
+    }
+
+    /**
+     * @return text table with one row per scenario and the total
+     */
+    public String describe() {
+        StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "%-24s %9s %7s %7s %9s %9s %9s %9s %9s %9s%n",
+                "Scenario", "Requests", "Failed", "Dropped", "RPS", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Scenario scenario : scenarios) {
+            scenario.describeTo(text);
+        }
+        total.describeTo(text);
+        return text.toString();
+    }
+
+    /**
+     * This method writes the report to {@link Config#LOAD_REPORT_DIR}, as JSON with the encoded histograms
+     * and as CSV with one row per scenario
+     * @return the JSON report, or null when it could not be written
+     */
+    @Nullable
+    public Path write() {
+        String run = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path directory = Paths.get(Config.LOAD_REPORT_DIR);
+        Path json = directory.resolve("load-" + run + ".json");
+        try {
+            Files.createDirectories(directory);
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), this);
+            try (Writer writer = Files.newBufferedWriter(directory.resolve("load-" + run + ".csv"), StandardCharsets.UTF_8)) {
+                writer.write("scenario,requests,failures,dropped,rps,p50,p90,p99,p99.9,max\n");
+                for (Scenario scenario : scenarios) {
+                    scenario.csvTo(writer);
+                }
+                total.csvTo(writer);
+            }
+            log.info("[LoadReport] Load report written to {}", json);
+            return json;
+        } catch (IOException e) {
+            log.warn("[LoadReport] Could not write load report: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Getter
+    public static class Scenario {
+        private final String name;
+        private final long requests;
+        private final long failures;
+        private final long dropped;
+        private final double throughputRps;
+        private final Map<String, Double> responseTimeMillis;
+        private final Map<String, Double> serviceTimeMillis;
+        private final Map<String, Long> errors;
+        private final String responseTimeHistogram;
+        @JsonIgnore
+        private final Histogram responseTime;
+        @JsonIgnore
+        private final Histogram serviceTime;
+
+        Scenario(String name, long failures, long dropped, Histogram responseTime, Histogram serviceTime, Map<String, Long> errors, long elapsedNanos) {
+            this.name = name;
+            this.requests = responseTime.getTotalCount();
+            this.failures = failures;
+            this.dropped = dropped;
+            this.throughputRps = round(requests / (elapsedNanos / 1_000_000_000.0));
+            this.responseTimeMillis = percentiles(responseTime);
+            this.serviceTimeMillis = percentiles(serviceTime);
+            this.errors = new TreeMap<>(errors);
+            this.responseTimeHistogram = LatencyRecorder.encode(responseTime);
+            this.responseTime = responseTime;
+            this.serviceTime = serviceTime;
+        }
+
+        private static Scenario merge(String name, List<Scenario> scenarios, long elapsedNanos) {
+            Histogram responseTime = new Histogram(3);
+            Histogram serviceTime = new Histogram(3);
+            Map<String, Long> errors = new TreeMap<>();
+            long failures = 0;
+            long dropped = 0;
+            for (Scenario scenario : scenarios) {
+                responseTime.add(scenario.responseTime);
+                serviceTime.add(scenario.serviceTime);
+                failures += scenario.failures;
+                dropped += scenario.dropped;
+                scenario.errors.forEach((type, count) -> errors.merge(type, count, Long::sum));
+            }
+            return new Scenario(name, failures, dropped, responseTime, serviceTime, errors, elapsedNanos);
+        }
+
+        /**
+         * @return failed share of the requests that were sent, 0 to 1
+         */
+        public double getErrorRate() {
+            return requests == 0 ? 0 : (double) failures / requests;
+        }
+
+        /**
+         * @param percentile e.g. 99.9
+         * @return response time at the percentile in milliseconds
+         */
+        public double percentileMillis(double percentile) {
+            return millis(responseTime.getValueAtPercentile(percentile));
+        }
+
+        private void describeTo(StringBuilder text) {
+            Map<String, Double> times = responseTimeMillis;
+            text.append(String.format(Locale.ROOT, "%-24s %9d %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, requests, failures, dropped,
+                    throughputRps, times.get("p50"), times.get("p90"), times.get("p99"), times.get("p99.9"), times.get("max")));
+        }
+
+        private void csvTo(Writer writer) throws IOException {
+            Map<String, Double> times = responseTimeMillis;
+            writer.write(String.format(Locale.ROOT, "\"%s\",%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n", name.replace("\"", "\"\""), requests, failures,
+                    dropped, throughputRps, times.get("p50"), times.get("p90"), times.get("p99"), times.get("p99.9"), times.get("max")));
+        }
+
+        private static Map<String, Double> percentiles(Histogram histogram) {
+            Map<String, Double> values = new LinkedHashMap<>();
+            for (double percentile : PERCENTILES) {
+                String label = percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile);
+                values.put("p" + label, millis(histogram.getValueAtPercentile(percentile)));
+            }
+            values.put("max", millis(histogram.getMaxValue()));
+            return values;
+        }
+
+        private static double millis(long micros) {
+            return round(micros / 1_000.0);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 1_000) / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.qa.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.qa.common.Config;
+import org.qa.network.NetworkClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a {@link LoadPlan} with a NetworkClient, e.g. the API calls a UI test already makes, against a real or stub backend.
+ * One scheduler thread releases arrivals at their planned time and every arrival runs on its own thread.
+ * Response times are measured from the planned start of an arrival, not from when it actually started, so a
+ * backend that stalls the load generator still shows up in the percentiles (coordinated omission correction).
+ * Service time, from the actual start, is reported next to it
+ */
+@Slf4j
+public class LoadRunner {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final NetworkClient client;
+
+    public LoadRunner(NetworkClient client) {
+        this.client = client;
+    }
+
+    /**
+     * This method runs the plan and waits for every request it started
+     * @param plan LoadPlan with at least one scenario
+     * @return LoadReport with throughput and percentiles per scenario
+     */
+    public LoadReport run(LoadPlan plan) {
+        if (plan.getScenarios().isEmpty()) {
+            throw new IllegalArgumentException("[LoadRunner] Load plan has no scenarios");
+        }
+        List<Recorder> recorders = plan.getScenarios().stream().map(Recorder::new).collect(Collectors.toList());
+        int totalWeight = recorders.stream().mapToInt(recorder -> recorder.scenario.getWeight()).sum();
+        AtomicInteger inFlight = new AtomicInteger();
+        long arrivals = plan.getArrivals();
+        log.info("[LoadRunner] Starting {}: {} arrivals", plan, arrivals);
+
+        ExecutorService executor = LoadThreads.newExecutor("load-worker");
+        long start = System.nanoTime();
+        try {
+            for (long n = 0; n < arrivals; n++) {
+                long intendedStart = start + plan.arrivalOffsetNanos(n);
+                if (!waitUntil(intendedStart)) {
+                    log.warn("[LoadRunner] Interrupted after {} of {} arrivals", n, arrivals);
+                    break;
+                }
+                Recorder recorder = pick(recorders, totalWeight);
+                if (inFlight.get() >= plan.getMaxInFlight()) {
+                    recorder.dropped.increment();
+                    continue;
+                }
+                inFlight.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        recorder.run(client, intendedStart);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            drain(executor);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        List<LoadReport.Scenario> scenarios = recorders.stream().map(recorder -> recorder.toReport(elapsedNanos)).collect(Collectors.toList());
+        LoadReport report = new LoadReport(plan, elapsedNanos, scenarios);
+        log.info("[LoadRunner] Finished {}\n{}", plan, report.describe());
+        return report;
+    }
+
+    private static void drain(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(Config.LOAD_DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("[LoadRunner] Requests still running after {} seconds are abandoned", Config.LOAD_DRAIN_TIMEOUT_SECONDS);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Park until the deadline, an arrival that is already late is released at once
+     * @return false when the scheduler was interrupted
+     */
+    private static boolean waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Recorder pick(List<Recorder> recorders, int totalWeight) {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Recorder recorder : recorders) {
+            ticket -= recorder.scenario.getWeight();
+            if (ticket < 0) {
+                return recorder;
+            }
+        }
+        return recorders.get(recorders.size() - 1);
+    }
+
+    /**
+     * Outcomes of one scenario, written concurrently by the arrivals
+     */
+    private static final class Recorder {
+        private final LoadScenario scenario;
+        private final Histogram responseTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final Histogram serviceTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        private Recorder(LoadScenario scenario) {
+            this.scenario = scenario;
+        }
+
+        private void run(NetworkClient client, long intendedStart) {
+            long actualStart = System.nanoTime();
+            try {
+                scenario.run(client);
+            } catch (Exception e) {
+                failures.increment();
+                errors.computeIfAbsent(errorType(e), type -> new LongAdder()).increment();
+            } finally {
+                long end = System.nanoTime();
+                responseTime.recordValue((end - intendedStart) / 1_000);
+                serviceTime.recordValue((end - actualStart) / 1_000);
+            }
+        }
+
+        private static String errorType(Exception e) {
+            if (e instanceof NetworkClient.NetworkException && ((NetworkClient.NetworkException) e).getHttpStatusCode() > 0) {
+                return "HTTP " + ((NetworkClient.NetworkException) e).getHttpStatusCode();
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return cause.getClass().getSimpleName();
+        }
+
+        private LoadReport.Scenario toReport(long elapsedNanos) {
+            Map<String, Long> errorCounts = errors.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+            return new LoadReport.Scenario(scenario.getName(), failures.sum(), dropped.sum(), responseTime.copy(), serviceTime.copy(),
+                    errorCounts, elapsedNanos);
+        }
+    }
+}
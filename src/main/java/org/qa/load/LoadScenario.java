@@ -0,0 +1,39 @@
+package org.qa.load;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.qa.network.NetworkClient;
+
+/**
+ * One user action of a {@link LoadPlan}, e.g. "open the cart" made of one or more NetworkClient calls.
+ * Each arrival picks a scenario at random in proportion to its weight
+ */
+@Getter
+public class LoadScenario {
+
+    private final String name;
+    private final int weight;
+    @Getter(AccessLevel.NONE)
+    private final Action action;
+
+    LoadScenario(String name, int weight, Action action) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("[LoadScenario] Weight of " + name + " must be positive, was " + weight);
+        }
+        this.name = name;
+        this.weight = weight;
+        this.action = action;
+    }
+
+    void run(NetworkClient client) throws Exception {
+        action.run(client);
+    }
+
+    /**
+     * Calls made by one arrival, any exception counts the arrival as failed
+     */
+    @FunctionalInterface
+    public interface Action {
+        void run(NetworkClient client) throws Exception;
+    }
+}
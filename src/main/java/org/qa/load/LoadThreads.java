@@ -0,0 +1,38 @@
+package org.qa.load;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads that run load requests and stub responses. Every task gets its own thread, blocking NetworkClient
+ * calls included, so the number of requests in flight is not capped by a pool size.
+ * Virtual threads are used when the JVM has them (Java 21+), the build compiles against the Java 17 API so they are
+ * looked up reflectively
+ */
+@Slf4j
+final class LoadThreads {
+
+    private LoadThreads() {}
+
+    private static volatile boolean fallbackLogged;
+
+    static ExecutorService newExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            if (!fallbackLogged) {
+                fallbackLogged = true;
+                log.info("[LoadThreads] Virtual threads need Java 21, using platform threads on Java {}", Runtime.version().feature());
+            }
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
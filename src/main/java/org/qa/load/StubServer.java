@@ -0,0 +1,187 @@
+package org.qa.load;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.qa.network.HttpMethods;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process HTTP backend answering canned JSON, so load plans and API tests can run in CI without the real service.
+ * Routes match the method and the exact path, or a path prefix when they end with {@code /*}. Unknown routes answer 404.
+ * Each request is handled on its own thread, a route delay simulates backend latency without limiting throughput.
+ * A route that sends an ETag or Last-Modified header answers a request repeating it in If-None-Match or
+ * If-Modified-Since with 304 Not Modified, so client caches can be tested against it
+ */
+@Slf4j
+public class StubServer implements AutoCloseable {
+
+    static {
+        // Without TCP_NODELAY the separate header and body writes wait for a delayed ACK, ~40ms per request.
+        // The JDK reads this once, when the first HttpServer of the JVM is created, so it only helps when no other
+        // server started before, the Gradle test task sets it on the command line for that reason
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService threads;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final LongAdder requestCount = new LongAdder();
+
+    private StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        threads = LoadThreads.newExecutor("stub-server");
+        server.setExecutor(threads);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * This method starts a server on a free port of the loopback interface
+     * @return StubServer without routes
+     */
+    public static StubServer start() {
+        try {
+            StubServer stub = new StubServer();
+            stub.server.start();
+            log.info("[StubServer] Listening on {}", stub.url(""));
+            return stub;
+        } catch (IOException e) {
+            throw new UncheckedIOException("[StubServer] Could not start stub server", e);
+        }
+    }
+
+    public StubServer stub(HttpMethods method, String path, int status, String json) {
+        return stub(method, path, status, json, Duration.ZERO);
+    }
+
+    /**
+     * This method adds or replaces a route
+     * @param method HTTP method
+     * @param path exact path, or prefix ending with /*
+     * @param status response status
+     * @param json response body
+     * @param delay time the route takes before answering
+     * @return this server
+     */
+    public StubServer stub(HttpMethods method, String path, int status, String json, Duration delay) {
+        return stub(method, path, status, json, delay, Map.of());
+    }
+
+    /**
+     * This method adds or replaces a route that sends extra response headers, e.g. ETag or Cache-Control
+     * @param method HTTP method
+     * @param path exact path, or prefix ending with /*
+     * @param status response status
+     * @param json response body
+     * @param headers response headers
+     * @return this server
+     */
+    public StubServer stub(HttpMethods method, String path, int status, String json, Map<String, String> headers) {
+        return stub(method, path, status, json, Duration.ZERO, headers);
+    }
+
+    private StubServer stub(HttpMethods method, String path, int status, String json, Duration delay, Map<String, String> headers) {
+        Map<String, String> routeHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        routeHeaders.putAll(headers);
+        routes.put(method + " " + path, new Route(status, json.getBytes(StandardCharsets.UTF_8), delay, routeHeaders));
+        return this;
+    }
+
+    /**
+     * @param path path starting with /
+     * @return absolute URL of the path on this server
+     */
+    public String url(String path) {
+        InetSocketAddress address = server.getAddress();
+        String host = address.getAddress() instanceof Inet6Address ? "[" + address.getAddress().getHostAddress() + "]" : address.getAddress().getHostAddress();
+        return "http://" + host + ":" + address.getPort() + path;
+    }
+
+    /**
+     * @return number of requests answered, unknown routes included
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        threads.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.increment();
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+            Route route = route(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+            if (route == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (!route.delay.isZero()) {
+                Thread.sleep(route.delay.toMillis());
+            }
+            route.headers.forEach(exchange.getResponseHeaders()::add);
+            if (route.notModified(exchange.getRequestHeaders())) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(route.status, route.body.length == 0 ? -1 : route.body.length);
+            if (route.body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(route.body);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Route route(String method, String path) {
+        Route route = routes.get(method + " " + path);
+        for (int slash = path.lastIndexOf('/'); route == null && slash >= 0; slash = path.lastIndexOf('/', slash - 1)) {
+            route = routes.get(method + " " + path.substring(0, slash) + "/*");
+        }
+        return route;
+    }
+
+    private static final class Route {
+        private final int status;
+        private final byte[] body;
+        private final Duration delay;
+        private final Map<String, String> headers;
+
+        private Route(int status, byte[] body, Duration delay, Map<String, String> headers) {
+            this.status = status;
+            this.body = body;
+            this.delay = delay;
+            this.headers = headers;
+        }
+
+        private boolean notModified(Headers request) {
+            String etag = headers.get("ETag");
+            String lastModified = headers.get("Last-Modified");
+            return (etag != null && etag.equals(request.getFirst("If-None-Match")))
+                    || (lastModified != null && lastModified.equals(request.getFirst("If-Modified-Since")));
+        }
+    }
+}
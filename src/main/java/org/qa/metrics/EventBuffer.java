@@ -0,0 +1,277 @@
+package org.qa.metrics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.qa.common.Config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Structured events of the last framework operations of each thread: action, page, locator or endpoint, URL,
+ * duration and outcome. Every thread writes into its own ring of {@link Config#EVENTS_BUFFER_SIZE} slots that is
+ * allocated once, so recording an event is a handful of array stores without locks, formatting or garbage.
+ * Events only become text when they are dumped, with the failure artifacts of a test or through {@link #dump(String)}
+ */
+@Slf4j
+public class EventBuffer {
+
+    private EventBuffer() {}
+
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    private static final long ORIGIN_MILLIS = System.currentTimeMillis();
+
+    private static final ObjectWriter JSON = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL).writer();
+
+    private static final Map<Thread, Ring> rings = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ThreadLocal<Ring> currentRing = ThreadLocal.withInitial(EventBuffer::newRing);
+
+    /**
+     * This method records a browser action, tagged with the last URL opened on this thread
+     * @param action operation name, e.g. click
+     * @param page page object class, or null
+     * @param target locator or element, or null; it is only turned into text when the events are dumped
+     * @param error exception the action failed with, or null
+     * @param startNanos {@link System#nanoTime()} taken when the action started
+     */
+    public static void record(String action, @Nullable Class<?> page, @Nullable Object target, @Nullable Throwable error, long startNanos) {
+        Ring ring = ring();
+        if (ring != null) {
+            ring.write(action, page, target, ring.url, 0, error, startNanos);
+        }
+    }
+
+    /**
+     * This method records a navigation, later actions of this thread are tagged with its URL
+     * @param url opened URL
+     * @param error exception the navigation failed with, or null
+     * @param startNanos {@link System#nanoTime()} taken when the navigation started
+     */
+    public static void recordNavigation(String url, @Nullable Throwable error, long startNanos) {
+        Ring ring = ring();
+        if (ring != null) {
+            ring.url = url;
+            ring.write("openUrl", null, null, url, 0, error, startNanos);
+        }
+    }
+
+    /**
+     * This method records an HTTP call
+     * @param action operation name, e.g. http.GET
+     * @param url request URL
+     * @param status HTTP status code, or 0 when there was no response
+     * @param error exception the call failed with, or null
+     * @param startNanos {@link System#nanoTime()} taken when the call started
+     */
+    public static void recordRequest(String action, String url, int status, @Nullable Throwable error, long startNanos) {
+        Ring ring = ring();
+        if (ring != null) {
+            ring.write(action, null, null, url, status, error, startNanos);
+        }
+    }
+
+    /**
+     * This method forgets the events of the current thread, it is called when a test starts
+     */
+    public static void clear() {
+        Ring ring = ring();
+        if (ring != null) {
+            ring.count = 0;
+            ring.url = null;
+        }
+    }
+
+    /**
+     * @return events of the current thread, oldest first
+     */
+    public static List<Event> snapshot() {
+        Ring ring = ring();
+        return ring == null ? new ArrayList<>() : ring.snapshot();
+    }
+
+    /**
+     * @param events events to write
+     * @return one JSON object per line
+     */
+    public static String toJsonLines(List<Event> events) {
+        StringBuilder text = new StringBuilder(events.size() * 160);
+        for (Event event : events) {
+            try {
+                text.append(JSON.writeValueAsString(event)).append('\n');
+            } catch (JsonProcessingException e) {
+                text.append("{\"error\":\"could not write event ").append(event.getAction()).append("\"}\n");
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * This method writes the events of the current thread to {@link Config#EVENTS_DIR}
+     * @param name file name without extension
+     * @return the written file, or null when there were no events
+     */
+    @Nullable
+    public static Path dump(String name) {
+        return write(name, snapshot());
+    }
+
+    /**
+     * This method writes the events of every thread to {@link Config#EVENTS_DIR}, ordered by time. The rings of other
+     * threads are read while they may be writing, so an event recorded at that moment can come out half written
+     * @return the written file, or null when there were no events
+     */
+    @Nullable
+    public static Path dumpAll() {
+        List<Ring> all;
+        synchronized (rings) {
+            all = new ArrayList<>(rings.values());
+        }
+        List<Event> events = new ArrayList<>();
+        all.forEach(ring -> events.addAll(ring.snapshot()));
+        events.sort(Comparator.comparing(Event::getTime));
+        return write("events-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")), events);
+    }
+
+    @Nullable
+    private static Path write(String name, List<Event> events) {
+        if (events.isEmpty()) {
+            return null;
+        }
+        Path directory = Paths.get(Config.EVENTS_DIR);
+        Path file = directory.resolve(name.replaceAll("[^A-Za-z0-9._\\-\\[\\]]", "_") + ".jsonl");
+        try {
+            Files.createDirectories(directory);
+            Files.write(file, toJsonLines(events).getBytes(StandardCharsets.UTF_8));
+            log.info("[EventBuffer] {} events written to {}", events.size(), file);
+            return file;
+        } catch (IOException e) {
+            log.warn("[EventBuffer] Could not write events to {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Ring ring() {
+        return Config.EVENTS_ENABLED ? currentRing.get() : null;
+    }
+
+    /**
+     * Virtual threads of a load run live for one request each, a ring per thread would be allocated for every request
+     */
+    @Nullable
+    private static Ring newRing() {
+        Thread thread = Thread.currentThread();
+        try {
+            if ((Boolean) Thread.class.getMethod("isVirtual").invoke(thread)) {
+                return null;
+            }
+        } catch (ReflectiveOperationException e) {
+            // Java 17 has no virtual threads
+        }
+        Ring ring = new Ring(thread.getName(), Config.EVENTS_BUFFER_SIZE);
+        rings.put(thread, ring);
+        return ring;
+    }
+
+    /**
+     * Slots of the ring as parallel arrays, written only by the owning thread
+     */
+    private static final class Ring {
+        private final String thread;
+        private final int mask;
+        private final long[] starts;
+        private final long[] durations;
+        private final String[] actions;
+        private final Class<?>[] pages;
+        private final Object[] targets;
+        private final String[] urls;
+        private final int[] statuses;
+        private final Throwable[] errors;
+        private long count;
+        @Nullable
+        private String url;
+
+        private Ring(String thread, int size) {
+            int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+            this.thread = thread;
+            this.mask = capacity - 1;
+            this.starts = new long[capacity];
+            this.durations = new long[capacity];
+            this.actions = new String[capacity];
+            this.pages = new Class<?>[capacity];
+            this.targets = new Object[capacity];
+            this.urls = new String[capacity];
+            this.statuses = new int[capacity];
+            this.errors = new Throwable[capacity];
+        }
+
+        private void write(String action, @Nullable Class<?> page, @Nullable Object target, @Nullable String url, int status, @Nullable Throwable error, long startNanos) {
+            int slot = (int) (count & mask);
+            starts[slot] = startNanos;
+            durations[slot] = System.nanoTime() - startNanos;
+            actions[slot] = action;
+            pages[slot] = page;
+            targets[slot] = target;
+            urls[slot] = url;
+            statuses[slot] = status;
+            errors[slot] = error;
+            count++;
+        }
+
+        private List<Event> snapshot() {
+            long end = count;
+            long first = Math.max(0, end - mask - 1);
+            List<Event> events = new ArrayList<>((int) (end - first));
+            for (long i = first; i < end; i++) {
+                int slot = (int) (i & mask);
+                events.add(new Event(Instant.ofEpochMilli(ORIGIN_MILLIS + (starts[slot] - ORIGIN_NANOS) / 1_000_000).toString(), thread,
+                        actions[slot], pages[slot] == null ? null : pages[slot].getSimpleName(),
+                        targets[slot] == null ? null : String.valueOf(targets[slot]), urls[slot], durations[slot] / 1_000 / 1_000.0,
+                        statuses[slot] == 0 ? null : statuses[slot], errors[slot] == null ? null : String.valueOf(errors[slot])));
+            }
+            return events;
+        }
+    }
+
+    @Getter
+    public static class Event {
+        private final String time;
+        private final String thread;
+        private final String action;
+        private final String page;
+        private final String target;
+        private final String url;
+        private final double durationMillis;
+        private final Integer status;
+        private final String error;
+
+        private Event(String time, String thread, String action, String page, String target, String url, double durationMillis, Integer status, String error) {
+            this.time = time;
+            this.thread = thread;
+            this.action = action;
+            this.page = page;
+            this.target = target;
+            this.url = url;
+            this.durationMillis = durationMillis;
+            this.status = status;
+            this.error = error;
+        }
+    }
+}
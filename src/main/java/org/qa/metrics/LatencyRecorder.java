@@ -0,0 +1,166 @@
+package org.qa.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.jetbrains.annotations.Nullable;
+import org.qa.common.Config;
+import org.testng.Reporter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency histograms of framework operations, tagged by operation, page class and locator.
+ * Values are recorded in microseconds into HdrHistograms with 3 significant digits, so recording is a lock-free
+ * counter increment and memory does not grow with the number of samples.
+ * At the end of the suite the histograms are written to {@link Config#LATENCY_METRICS_DIR} and summarised in the TestNG report
+ */
+@Slf4j
+public class LatencyRecorder {
+
+    private LatencyRecorder() {}
+
+    /** Tag value for operations without a page or locator */
+    public static final String NONE = "-";
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final Map<Tag, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * This method records the time since {@code startNanos}
+     * @param operation operation name, e.g. click or http.GET
+     * @param page page object class name, or {@link #NONE}
+     * @param locator locator or endpoint, or {@link #NONE}
+     * @param startNanos {@link System#nanoTime()} taken when the operation started
+     */
+    public static void record(String operation, String page, String locator, long startNanos) {
+        if (!Config.LATENCY_METRICS_ENABLED) {
+            return;
+        }
+        long micros = Math.max(0, (System.nanoTime() - startNanos) / 1_000);
+        histograms.computeIfAbsent(new Tag(operation, page, locator), tag -> new ConcurrentHistogram(SIGNIFICANT_DIGITS)).recordValue(micros);
+    }
+
+    /**
+     * @return summary per tag, slowest p99 first
+     */
+    public static List<Map<String, Object>> summary() {
+        List<Map.Entry<Tag, Histogram>> entries = new ArrayList<>(histograms.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<Tag, Histogram> e) -> e.getValue().getValueAtPercentile(99)).reversed());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<Tag, Histogram> entry : entries) {
+            Histogram histogram = entry.getValue().copy();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("operation", entry.getKey().operation);
+            row.put("page", entry.getKey().page);
+            row.put("locator", entry.getKey().locator);
+            row.put("count", histogram.getTotalCount());
+            row.put("p50Millis", millis(histogram.getValueAtPercentile(50)));
+            row.put("p95Millis", millis(histogram.getValueAtPercentile(95)));
+            row.put("p99Millis", millis(histogram.getValueAtPercentile(99)));
+            row.put("maxMillis", millis(histogram.getMaxValue()));
+            row.put("histogram", encode(histogram));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * This method writes every histogram to a JSON file, each with its percentiles and the compressed
+     * HdrHistogram encoding (base64) so runs can be merged later, logs a summary table to the TestNG report
+     * and starts over with empty histograms
+     * @return the written file, or null when nothing was recorded
+     */
+    @Nullable
+    public static Path write() {
+        if (histograms.isEmpty()) {
+            return null;
+        }
+        List<Map<String, Object>> rows = summary();
+        histograms.clear();
+        Reporter.log(table(rows));
+
+        String run = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path directory = Paths.get(Config.LATENCY_METRICS_DIR);
+        Path file = directory.resolve("latency-" + run + ".json");
+        try {
+            Files.createDirectories(directory);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("run", run);
+            report.put("unit", "microseconds");
+            report.put("operations", rows);
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+            log.info("[LatencyRecorder] {} latency histograms written to {}", rows.size(), file);
+            return file;
+        } catch (IOException e) {
+            log.warn("[LatencyRecorder] Could not write latency report: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String table(List<Map<String, Object>> rows) {
+        StringBuilder html = new StringBuilder("<table border=\"1\"><tr><th>Operation</th><th>Page</th><th>Locator</th><th>Count</th>"
+                + "<th>p50 ms</th><th>p95 ms</th><th>p99 ms</th><th>max ms</th></tr>");
+        for (Map<String, Object> row : rows) {
+            html.append("<tr>");
+            for (String column : List.of("operation", "page", "locator", "count", "p50Millis", "p95Millis", "p99Millis", "maxMillis")) {
+                html.append("<td>").append(escape(String.valueOf(row.get(column)))).append("</td>");
+            }
+            html.append("</tr>");
+        }
+        return html.append("</table>").toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static double millis(long micros) {
+        return Double.parseDouble(String.format(Locale.ROOT, "%.3f", micros / 1_000.0));
+    }
+
+    /**
+     * This method encodes a histogram in the compressed HdrHistogram format, so it can be decoded and merged later
+     * @param histogram Histogram
+     * @return base64 text
+     */
+    public static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        byte[] bytes = new byte[length];
+        buffer.flip();
+        buffer.get(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    @EqualsAndHashCode
+    private static final class Tag {
+        private final String operation;
+        private final String page;
+        private final String locator;
+
+        private Tag(String operation, String page, String locator) {
+            this.operation = operation;
+            this.page = page;
+            this.locator = locator;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.qa.metrics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Page-load and Web Vitals measurements of one navigation, read from the browser's Performance APIs.
+ * Timings are in milliseconds from the start of the navigation. Metrics the browser does not support
+ * (LCP, INP and long tasks outside Chromium) are null
+ */
+@Slf4j
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageMetrics {
+
+    /** Time the buffered PerformanceObservers get to deliver the entries recorded before they were installed */
+    private static final int SETTLE_MILLIS = 50;
+
+    /**
+     * Installs the observers once per document, they keep accumulating CLS, INP and long tasks until the page is left
+     */
+    private static final String OBSERVE_SCRIPT =
+            "var supported = (window.PerformanceObserver && PerformanceObserver.supportedEntryTypes) || [];" +
+            "function has(type) { return supported.indexOf(type) >= 0; }" +
+            "if (!window.__qaVitals) {" +
+            "  var v = window.__qaVitals = { lcp: has('largest-contentful-paint') ? 0 : null, cls: has('layout-shift') ? 0 : null," +
+            "    inp: has('event') ? 0 : null, longTasks: has('longtask') ? 0 : null, longTaskMillis: has('longtask') ? 0 : null };" +
+            "  function observe(type, handle, options) {" +
+            "    if (!has(type)) { return; }" +
+            "    try {" +
+            "      var o = { type: type, buffered: true }; for (var k in options || {}) { o[k] = options[k]; }" +
+            "      new PerformanceObserver(function (list) { list.getEntries().forEach(handle); }).observe(o);" +
+            "    } catch (e) {}" +
+            "  }" +
+            "  observe('largest-contentful-paint', function (e) { v.lcp = e.renderTime || e.loadTime || e.startTime; });" +
+            "  observe('layout-shift', function (e) { if (!e.hadRecentInput) { v.cls += e.value; } });" +
+            "  observe('event', function (e) { if (e.interactionId) { v.inp = Math.max(v.inp, e.duration); } }, { durationThreshold: 16 });" +
+            "  observe('longtask', function (e) { v.longTasks++; v.longTaskMillis += e.duration; });" +
+            "}";
+
+    /**
+     * Reads what the observers accumulated since the page was opened, installing them first when the page was
+     * reached without {@link #observe}, e.g. by a click
+     */
+    private static final String COLLECT_SCRIPT = OBSERVE_SCRIPT +
+            "var settle = arguments[0], done = arguments[arguments.length - 1], v = window.__qaVitals;" +
+            "setTimeout(function () {" +
+            "  var nav = performance.getEntriesByType('navigation')[0];" +
+            "  var fcp = performance.getEntriesByName('first-contentful-paint')[0];" +
+            "  var resources = performance.getEntriesByType('resource'), resourceBytes = 0;" +
+            "  resources.forEach(function (r) { resourceBytes += r.transferSize || 0; });" +
+            "  done({ url: location.href," +
+            "    ttfb: nav ? nav.responseStart : null, fcp: fcp ? fcp.startTime : null," +
+            "    domContentLoaded: nav ? nav.domContentLoadedEventEnd : null, load: nav ? nav.loadEventEnd : null," +
+            "    documentBytes: nav ? nav.transferSize : null, resources: resources.length, resourceBytes: resourceBytes," +
+            "    lcp: v.lcp, cls: v.cls, inp: v.inp, longTasks: v.longTasks, longTaskMillis: v.longTaskMillis });" +
+            "}, settle);";
+
+    private final String url;
+    private final long timestamp;
+    @Nullable private final Double ttfbMillis;
+    @Nullable private final Double fcpMillis;
+    @Nullable private final Double domContentLoadedMillis;
+    @Nullable private final Double loadMillis;
+    @Nullable private final Double documentBytes;
+    @Nullable private final Double resourceCount;
+    @Nullable private final Double resourceBytes;
+    @Nullable private final Double lcpMillis;
+    @Nullable private final Double cls;
+    @Nullable private final Double inpMillis;
+    @Nullable private final Double longTasks;
+    @Nullable private final Double longTaskMillis;
+
+    private PageMetrics(Map<String, Object> values) {
+        this.url = String.valueOf(values.get("url"));
+        this.timestamp = System.currentTimeMillis();
+        this.ttfbMillis = number(values, "ttfb");
+        this.fcpMillis = number(values, "fcp");
+        this.domContentLoadedMillis = number(values, "domContentLoaded");
+        this.loadMillis = number(values, "load");
+        this.documentBytes = number(values, "documentBytes");
+        this.resourceCount = number(values, "resources");
+        this.resourceBytes = number(values, "resourceBytes");
+        this.lcpMillis = number(values, "lcp");
+        this.cls = number(values, "cls");
+        this.inpMillis = number(values, "inp");
+        this.longTasks = number(values, "longTasks");
+        this.longTaskMillis = number(values, "longTaskMillis");
+    }
+
+    /**
+     * This method starts the observers on the page the driver just opened, so interactions and layout shifts
+     * of the whole visit are measured
+     * @param driver WebDriver
+     */
+    public static void observe(WebDriver driver) {
+        try {
+            ((JavascriptExecutor) driver).executeScript(OBSERVE_SCRIPT);
+        } catch (WebDriverException | ClassCastException e) {
+            log.warn("[PageMetrics] Could not observe page metrics: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * This method reads the metrics of the page the driver is on, it is called when the page is left or the test ends
+     * @param driver WebDriver
+     * @return PageMetrics, or null when the browser could not provide them
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static PageMetrics collect(WebDriver driver) {
+        try {
+            Object values = ((JavascriptExecutor) driver).executeAsyncScript(COLLECT_SCRIPT, SETTLE_MILLIS);
+            return values instanceof Map ? new PageMetrics((Map<String, Object>) values) : null;
+        } catch (WebDriverException | ClassCastException e) {
+            log.warn("[PageMetrics] Could not collect page metrics: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Metric values by name, in the order they are reported
+     * @return map of metric name to value, null for unsupported metrics
+     */
+    public Map<String, Double> values() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        values.put("ttfbMillis", ttfbMillis);
+        values.put("fcpMillis", fcpMillis);
+        values.put("domContentLoadedMillis", domContentLoadedMillis);
+        values.put("loadMillis", loadMillis);
+        values.put("documentBytes", documentBytes);
+        values.put("resourceCount", resourceCount);
+        values.put("resourceBytes", resourceBytes);
+        values.put("lcpMillis", lcpMillis);
+        values.put("cls", cls);
+        values.put("inpMillis", inpMillis);
+        values.put("longTasks", longTasks);
+        values.put("longTaskMillis", longTaskMillis);
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s ttfb=%s fcp=%s load=%s lcp=%s cls=%s longTasks=%s", url, ttfbMillis, fcpMillis, loadMillis, lcpMillis, cls, longTasks);
+    }
+
+    @Nullable
+    private static Double number(Map<String, Object> values, String key) {
+        Object value = values.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+}
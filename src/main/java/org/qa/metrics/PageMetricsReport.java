@@ -0,0 +1,177 @@
+package org.qa.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.WebDriver;
+import org.qa.common.Config;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects the {@link PageMetrics} of every navigation in the run, per test and for the whole run, and writes
+ * a JSON and a CSV report with per-URL percentiles to {@link Config#PAGE_METRICS_DIR}
+ */
+@Slf4j
+public class PageMetricsReport {
+
+    private PageMetricsReport() {}
+
+    private static final double[] PERCENTILES = {50, 75, 95};
+
+    private static final ConcurrentLinkedQueue<PageMetrics> runMetrics = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<List<PageMetrics>> testMetrics = ThreadLocal.withInitial(ArrayList::new);
+    private static final ThreadLocal<WebDriver> openPage = new ThreadLocal<>();
+
+    /**
+     * This method starts measuring the page the driver just opened, its metrics are collected by {@link #pageLeft()}
+     * @param driver WebDriver on the opened page
+     */
+    public static void pageOpened(WebDriver driver) {
+        pageLeft();
+        PageMetrics.observe(driver);
+        openPage.set(driver);
+    }
+
+    /**
+     * This method records the metrics of the page the current thread opened last, it is called before the next
+     * navigation and when the test ends, while the driver still shows the page
+     */
+    public static void pageLeft() {
+        WebDriver driver = openPage.get();
+        if (driver == null) {
+            return;
+        }
+        openPage.remove();
+        record(PageMetrics.collect(driver));
+    }
+
+    /**
+     * This method records the metrics of a navigation for the current test and the run
+     * @param metrics PageMetrics, ignored when null
+     */
+    public static void record(@Nullable PageMetrics metrics) {
+        if (metrics == null) {
+            return;
+        }
+        runMetrics.add(metrics);
+        testMetrics.get().add(metrics);
+        log.debug("[PageMetricsReport] {}", metrics);
+    }
+
+    /**
+     * This method returns the metrics recorded by the current thread since the last call, i.e. for the test that just ended
+     * @return navigations in the order they happened
+     */
+    public static List<PageMetrics> takeTestMetrics() {
+        List<PageMetrics> metrics = List.copyOf(testMetrics.get());
+        testMetrics.remove();
+        return metrics;
+    }
+
+    /**
+     * This method writes the report of every navigation recorded in the run, and starts a new run
+     * @return the JSON report, or null when nothing was recorded
+     */
+    @Nullable
+    public static Path write() {
+        List<PageMetrics> samples = new ArrayList<>();
+        PageMetrics sample;
+        while ((sample = runMetrics.poll()) != null) {
+            samples.add(sample);
+        }
+        if (samples.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Map<String, Map<String, Object>>> summary = summarise(samples);
+        String run = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path directory = Paths.get(Config.PAGE_METRICS_DIR);
+        Path json = directory.resolve("page-metrics-" + run + ".json");
+        Path csv = directory.resolve("page-metrics-" + run + ".csv");
+        try {
+            Files.createDirectories(directory);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("run", run);
+            report.put("navigations", samples.size());
+            report.put("pages", summary);
+            report.put("samples", samples);
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), report);
+            writeCsv(csv, summary);
+            log.info("[PageMetricsReport] {} navigations on {} pages written to {}", samples.size(), summary.size(), json);
+            return json;
+        } catch (IOException e) {
+            log.warn("[PageMetricsReport] Could not write page metrics report: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Percentiles of every metric per URL, URLs are grouped without query string and fragment
+     */
+    private static Map<String, Map<String, Map<String, Object>>> summarise(List<PageMetrics> samples) {
+        Map<String, Map<String, List<Double>>> valuesByPage = new TreeMap<>();
+        for (PageMetrics metrics : samples) {
+            Map<String, List<Double>> pageValues = valuesByPage.computeIfAbsent(metrics.getUrl().split("[?#]")[0], url -> new LinkedHashMap<>());
+            metrics.values().forEach((name, value) -> {
+                if (value != null) {
+                    pageValues.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+                }
+            });
+        }
+
+        Map<String, Map<String, Map<String, Object>>> summary = new LinkedHashMap<>();
+        valuesByPage.forEach((url, pageValues) -> {
+            Map<String, Map<String, Object>> pageSummary = new LinkedHashMap<>();
+            pageValues.forEach((name, values) -> {
+                Collections.sort(values);
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("samples", values.size());
+                for (double percentile : PERCENTILES) {
+                    stats.put("p" + (int) percentile, percentile(values, percentile));
+                }
+                stats.put("max", values.get(values.size() - 1));
+                pageSummary.put(name, stats);
+            });
+            summary.put(url, pageSummary);
+        });
+        return summary;
+    }
+
+    private static void writeCsv(Path csv, Map<String, Map<String, Map<String, Object>>> summary) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write("url,metric,samples,p50,p75,p95,max\n");
+            for (Map.Entry<String, Map<String, Map<String, Object>>> page : summary.entrySet()) {
+                for (Map.Entry<String, Map<String, Object>> metric : page.getValue().entrySet()) {
+                    Map<String, Object> stats = metric.getValue();
+                    writer.write(String.format(Locale.ROOT, "\"%s\",%s,%s,%.3f,%.3f,%.3f,%.3f%n", page.getKey().replace("\"", "\"\""), metric.getKey(),
+                            stats.get("samples"), stats.get("p50"), stats.get("p75"), stats.get("p95"), stats.get("max")));
+                }
+            }
+        }
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values
+     */
+    private static double percentile(List<Double> sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1);
+    }
+}
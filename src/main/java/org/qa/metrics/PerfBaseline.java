@@ -0,0 +1,161 @@
+package org.qa.metrics;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.qa.common.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling window of the last {@link Config#PERF_BASELINE_WINDOW} timings of every test and measurement, kept in
+ * {@link Config#PERF_BASELINE_FILE} between runs so CI can cache it.
+ * A new timing is a regression when it is an outlier against the window by its modified z-score (median and median
+ * absolute deviation, so a few slow runs in the window do not hide the next one) and also at least
+ * {@link Config#PERF_REGRESSION_MIN_PERCENT} percent above the median, so tiny but very stable timings do not flap
+ */
+@Slf4j
+public class PerfBaseline {
+
+    private PerfBaseline() {}
+
+    /** Modified z-score above which a value is an outlier (Iglewicz and Hoaglin) */
+    private static final double OUTLIER_Z_SCORE = 3.5;
+
+    private static final Map<String, Map<String, Deque<Double>>> samples = load();
+
+    /**
+     * This method compares a timing with the baseline, it is not recorded
+     * @param test test key
+     * @param measurement e.g. wallMillis or step.login
+     * @param value new timing
+     * @return description of the regression, or null when the value is within the baseline or there is not enough history
+     */
+    @Nullable
+    public static String regression(String test, String measurement, double value) {
+        return regression(measurement, window(test, measurement), value);
+    }
+
+    /**
+     * This method compares a timing with a window of earlier timings
+     * @param measurement e.g. wallMillis or step.login
+     * @param samples earlier timings, in any order
+     * @param value new timing
+     * @return description of the regression, or null when the value is within the window or there is not enough history
+     */
+    @Nullable
+    public static String regression(String measurement, List<Double> samples, double value) {
+        List<Double> window = new ArrayList<>(samples);
+        if (window.size() < Config.PERF_BASELINE_MIN_SAMPLES) {
+            return null;
+        }
+        Collections.sort(window);
+        double median = median(window);
+        List<Double> deviations = new ArrayList<>(window.size());
+        window.forEach(sample -> deviations.add(Math.abs(sample - median)));
+        Collections.sort(deviations);
+        double mad = median(deviations);
+
+        boolean aboveMinimum = value > median * (1 + Config.PERF_REGRESSION_MIN_PERCENT / 100.0);
+        boolean outlier = mad == 0 || 0.6745 * (value - median) / mad > OUTLIER_Z_SCORE;
+        if (!aboveMinimum || !outlier) {
+            return null;
+        }
+        return String.format(Locale.ROOT, "%s %.1f is %.0f%% above its baseline median %.1f (MAD %.1f, %d runs)",
+                measurement, value, (value / median - 1) * 100, median, mad, window.size());
+    }
+
+    /**
+     * This method adds timings of a passed test to the baseline, the oldest ones drop out of the window
+     * @param test test key
+     * @param measurements timings by measurement name
+     */
+    public static void record(String test, Map<String, Double> measurements) {
+        Map<String, Deque<Double>> testSamples = samples.computeIfAbsent(test, t -> new ConcurrentHashMap<>());
+        measurements.forEach((measurement, value) -> {
+            Deque<Double> window = testSamples.computeIfAbsent(measurement, m -> new ArrayDeque<>());
+            synchronized (window) {
+                window.addLast(value);
+                while (window.size() > Config.PERF_BASELINE_WINDOW) {
+                    window.removeFirst();
+                }
+            }
+        });
+    }
+
+    /**
+     * This method writes the baseline back to its file, it is called once at the end of the suite
+     */
+    public static void save() {
+        if (samples.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, List<Double>>> snapshot = new TreeMap<>();
+        samples.forEach((test, measurements) -> measurements.forEach((measurement, window) -> {
+            synchronized (window) {
+                snapshot.computeIfAbsent(test, t -> new TreeMap<>()).put(measurement, new ArrayList<>(window));
+            }
+        }));
+        Path file = Paths.get(Config.PERF_BASELINE_FILE);
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "baseline", ".tmp");
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(temp.toFile(), snapshot);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("[PerfBaseline] Baseline of {} tests written to {}", snapshot.size(), file);
+        } catch (IOException e) {
+            log.warn("[PerfBaseline] Could not write baseline {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static List<Double> window(String test, String measurement) {
+        Deque<Double> window = samples.getOrDefault(test, Map.of()).get(measurement);
+        if (window == null) {
+            return new ArrayList<>();
+        }
+        synchronized (window) {
+            return new ArrayList<>(window);
+        }
+    }
+
+    private static double median(List<Double> sorted) {
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+
+    private static Map<String, Map<String, Deque<Double>>> load() {
+        Map<String, Map<String, Deque<Double>>> loaded = new ConcurrentHashMap<>();
+        Path file = Paths.get(Config.PERF_BASELINE_FILE);
+        if (!Files.exists(file)) {
+            return loaded;
+        }
+        try {
+            Map<String, Map<String, List<Double>>> stored = new ObjectMapper().readValue(file.toFile(), new TypeReference<>() {});
+            stored.forEach((test, measurements) -> {
+                Map<String, Deque<Double>> testSamples = new ConcurrentHashMap<>();
+                measurements.forEach((measurement, window) -> testSamples.put(measurement, new ArrayDeque<>(window)));
+                loaded.put(test, testSamples);
+            });
+            log.info("[PerfBaseline] Loaded baseline of {} tests from {}", loaded.size(), file);
+        } catch (IOException e) {
+            log.warn("[PerfBaseline] Could not read baseline {}, starting a new one: {}", file, e.getMessage());
+        }
+        return loaded;
+    }
+}
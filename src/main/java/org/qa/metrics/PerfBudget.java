@@ -0,0 +1,30 @@
+package org.qa.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Performance limits of a test, checked by the TestListener when the test method returns.
+ * More limits can be set from inside the test with {@link PerfBudgets}
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PerfBudget {
+    /** Maximum wall time of the test method in milliseconds, not checked when negative */
+    long maxMillis() default -1;
+
+    /** Limits on the worst navigation of the test, as metric=max with {@link PageMetrics} names, e.g. lcpMillis=2500 or cls=0.1 */
+    String[] page() default {};
+
+    /** Limits on steps timed with {@link PerfBudgets#step(String, Runnable)}, as step=maxMillis, e.g. login=2000 */
+    String[] steps() default {};
+
+    /** What a broken limit does, DEFAULT follows -Dperf.budget.mode */
+    Mode mode() default Mode.DEFAULT;
+
+    enum Mode {
+        DEFAULT, FAIL, WARN, OFF
+    }
+}
@@ -0,0 +1,219 @@
+package org.qa.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.qa.common.Config;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Performance budgets of the running test and the timings they are checked against.
+ * Limits come from {@link PerfBudget} on the test method and from the limit* and step methods called inside the test,
+ * e.g. {@code PerfBudgets.step("login", Duration.ofSeconds(2), () -> loginPage.login(user, password))}.
+ * When the test method returns, {@link #enforce(ITestResult, List)} checks the limits, compares the timings with
+ * the {@link PerfBaseline} and records them there when the test passed
+ */
+@Slf4j
+public class PerfBudgets {
+
+    private PerfBudgets() {}
+
+    private static final String WALL_TIME = "wallMillis";
+    private static final String STEP = "step.";
+    private static final String PAGE = "page.";
+
+    private static final ThreadLocal<Map<String, Double>> limits = ThreadLocal.withInitial(LinkedHashMap::new);
+    private static final ThreadLocal<Map<String, Double>> steps = ThreadLocal.withInitial(LinkedHashMap::new);
+
+    /**
+     * This method limits the wall time of the current test
+     * @param maxMillis maximum in milliseconds
+     */
+    public static void limitTestMillis(long maxMillis) {
+        limits.get().put(WALL_TIME, (double) maxMillis);
+    }
+
+    /**
+     * This method limits a page metric for every navigation of the current test
+     * @param metric {@link PageMetrics} name, e.g. lcpMillis or cls
+     * @param max maximum value
+     */
+    public static void limitPageMetric(String metric, double max) {
+        limits.get().put(PAGE + metric, max);
+    }
+
+    /**
+     * This method times a step of the test and limits its duration
+     * @param name step name, a step run several times is limited and recorded by its slowest run
+     * @param budget maximum duration
+     * @param step test code
+     */
+    public static void step(String name, Duration budget, Runnable step) {
+        limits.get().put(STEP + name, (double) budget.toMillis());
+        step(name, step);
+    }
+
+    /**
+     * This method times a step of the test for the baseline, its limit may come from {@link PerfBudget#steps()}
+     * @param name step name
+     * @param step test code
+     */
+    public static void step(String name, Runnable step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+        } finally {
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            steps.get().merge(STEP + name, millis, Math::max);
+        }
+    }
+
+    /**
+     * This method checks the budgets and the baseline of a test that just returned, and resets the budgets of the thread.
+     * A broken budget or a regression fails a passed test or is only logged, depending on the configured mode
+     * @param result result of the test method
+     * @param pageMetrics navigations of the test
+     */
+    public static void enforce(ITestResult result, List<PageMetrics> pageMetrics) {
+        Map<String, Double> measurements = new LinkedHashMap<>(steps.get());
+        Map<String, Double> budgets = new LinkedHashMap<>(limits.get());
+        steps.remove();
+        limits.remove();
+
+        long end = result.getEndMillis() > 0 ? result.getEndMillis() : System.currentTimeMillis();
+        measurements.put(WALL_TIME, (double) (end - result.getStartMillis()));
+        for (PageMetrics metrics : pageMetrics) {
+            metrics.values().forEach((metric, value) -> {
+                if (value != null) {
+                    measurements.merge(PAGE + metric, value, Math::max);
+                }
+            });
+        }
+
+        PerfBudget annotation = annotation(result);
+        PerfBudget.Mode budgetMode = mode(annotation != null ? annotation.mode() : PerfBudget.Mode.DEFAULT, Config.PERF_BUDGET_MODE);
+        if (annotation != null) {
+            addAnnotationBudgets(annotation, budgets);
+        }
+        List<String> exceeded = new ArrayList<>();
+        budgets.forEach((name, max) -> {
+            Double value = measurements.get(name);
+            if (value != null && value > max) {
+                exceeded.add(String.format(Locale.ROOT, "%s %.1f exceeds budget %.1f", name, value, max));
+            }
+        });
+
+        String test = testKey(result);
+        PerfBudget.Mode regressionMode = mode(PerfBudget.Mode.DEFAULT, Config.PERF_REGRESSION_MODE);
+        List<String> regressions = new ArrayList<>();
+        if (regressionMode != PerfBudget.Mode.OFF) {
+            measurements.forEach((name, value) -> {
+                String regression = tracked(name) ? PerfBaseline.regression(test, name, value) : null;
+                if (regression != null) {
+                    regressions.add(regression);
+                }
+            });
+        }
+
+        result.setAttribute("perf.measurements", measurements);
+        report(result, "budget", exceeded, budgetMode);
+        report(result, "regression", regressions, regressionMode);
+
+        if (result.isSuccess()) {
+            Map<String, Double> tracked = new LinkedHashMap<>();
+            measurements.forEach((name, value) -> {
+                if (tracked(name)) {
+                    tracked.put(name, value);
+                }
+            });
+            PerfBaseline.record(test, tracked);
+        }
+    }
+
+    /**
+     * Key of a test in the baseline: class, method, browser and parameters, so every variant keeps its own history
+     */
+    static String testKey(ITestResult result) {
+        StringBuilder key = new StringBuilder(result.getTestClass().getName()).append('.').append(result.getMethod().getMethodName());
+        Object browser = result.getAttribute("browser");
+        if (browser != null) {
+            key.append('[').append(browser).append(']');
+        }
+        if (result.getParameters().length > 0) {
+            String parameters = Arrays.deepToString(result.getParameters());
+            key.append(parameters.length() > 100 ? parameters.substring(0, 100) : parameters);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Timings are tracked in the baseline, counts and scores such as resourceCount or cls are only checked against budgets
+     */
+    private static boolean tracked(String measurement) {
+        return !measurement.startsWith(PAGE) || measurement.endsWith("Millis");
+    }
+
+    private static void report(ITestResult result, String kind, List<String> problems, PerfBudget.Mode mode) {
+        if (problems.isEmpty() || mode == PerfBudget.Mode.OFF) {
+            return;
+        }
+        String message = String.format("[PerfBudgets] %s: %s %s", result.getName(), kind, String.join("; ", problems));
+        result.setAttribute("perf." + kind, problems);
+        Reporter.log(message);
+        if (mode == PerfBudget.Mode.FAIL && result.isSuccess()) {
+            log.error(message);
+            result.setStatus(ITestResult.FAILURE);
+            result.setThrowable(new PerfBudgetException(message));
+        } else {
+            log.warn(message);
+        }
+    }
+
+    private static void addAnnotationBudgets(PerfBudget annotation, Map<String, Double> budgets) {
+        if (annotation.maxMillis() >= 0) {
+            budgets.putIfAbsent(WALL_TIME, (double) annotation.maxMillis());
+        }
+        for (String limit : annotation.page()) {
+            putLimit(budgets, PAGE, limit);
+        }
+        for (String limit : annotation.steps()) {
+            putLimit(budgets, STEP, limit);
+        }
+    }
+
+    private static void putLimit(Map<String, Double> budgets, String prefix, String limit) {
+        String[] parts = limit.split("=", 2);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("[PerfBudgets] Budget must be name=max, was \"" + limit + "\"");
+        }
+        budgets.putIfAbsent(prefix + parts[0].trim(), Double.parseDouble(parts[1].trim()));
+    }
+
+    private static PerfBudget.Mode mode(PerfBudget.Mode mode, String configured) {
+        return mode != PerfBudget.Mode.DEFAULT ? mode : PerfBudget.Mode.valueOf(configured.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @Nullable
+    private static PerfBudget annotation(ITestResult result) {
+        Method method = result.getMethod().getConstructorOrMethod().getMethod();
+        return method != null ? method.getAnnotation(PerfBudget.class) : null;
+    }
+
+    /**
+     * Thrown into the result of a test that broke its performance budget or regressed against its baseline
+     */
+    public static class PerfBudgetException extends AssertionError {
+        public PerfBudgetException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.qa.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.qa.common.Config;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Durations of the tests of this run, the input of the duration-balanced test shards.
+ * Each run writes run-&lt;shard&gt;-&lt;time&gt;.json to {@link Config#TEST_HISTORY_DIR}, the mergeShards Gradle task folds
+ * those files into durations.json, which the test task reads to split the suite
+ */
+@Slf4j
+public class TestHistory {
+
+    private TestHistory() {}
+
+    private static final Map<String, DoubleAdder> durations = new ConcurrentHashMap<>();
+
+    /**
+     * This method adds the duration of a finished test to its class and method, invocations of one method are summed
+     * @param result result of a test that ran
+     */
+    public static void record(ITestResult result) {
+        if (result.getEndMillis() <= 0) {
+            return;
+        }
+        String test = result.getTestClass().getName() + "." + result.getMethod().getMethodName();
+        durations.computeIfAbsent(test, t -> new DoubleAdder()).add(result.getEndMillis() - result.getStartMillis());
+    }
+
+    /**
+     * This method writes the durations recorded in this run and starts over
+     * @return the written file, or null when nothing was recorded
+     */
+    @Nullable
+    public static Path save() {
+        Map<String, Double> run = new TreeMap<>();
+        durations.forEach((test, millis) -> run.put(test, millis.sum()));
+        durations.clear();
+        if (run.isEmpty()) {
+            return null;
+        }
+        String time = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path directory = Paths.get(Config.TEST_HISTORY_DIR);
+        Path file = directory.resolve("run-" + Config.TEST_SHARD + "-" + time + ".json");
+        try {
+            Files.createDirectories(directory);
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), run);
+            log.info("[TestHistory] Durations of {} tests written to {}", run.size(), file);
+            return file;
+        } catch (IOException e) {
+            log.warn("[TestHistory] Could not write test durations: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -2,31 +2,95 @@ package org.qa.network;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import okio.BufferedSource;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.qa.common.Config;
+import org.qa.metrics.EventBuffer;
+import org.qa.metrics.LatencyRecorder;
+
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 @Slf4j
 public class NetworkClient {
 
-    private static final int DEFAULT_TIMEOUT_SECONDS = 30;
     private static final String APPLICATION_JSON = "application/json";
+    private static final MediaType JSON_MEDIA_TYPE = MediaType.parse(APPLICATION_JSON);
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
 
     private final OkHttpClient client;
     private final ObjectMapper objectMapper;
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final AtomicLong responseCount = new AtomicLong();
+    @Nullable
+    private final ResponseCache responseCache;
 
     public NetworkClient() {
-        client = new OkHttpClient.Builder()
-                .connectTimeout(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
-                .readTimeout(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        this(Duration.ofSeconds(Config.NETWORK_TIMEOUT_SECONDS));
+    }
+
+    /**
+     * Client on the shared {@link NetworkTransport} with its own connect, read and write timeout
+     * @param timeout Duration
+     */
+    public NetworkClient(Duration timeout) {
+        this(timeout, timeout);
+    }
+
+    /**
+     * Client on the shared {@link NetworkTransport} with its own timeouts
+     * @param connectTimeout Duration
+     * @param readTimeout read and write timeout
+     */
+    public NetworkClient(Duration connectTimeout, Duration readTimeout) {
+        this(connectTimeout, readTimeout, null);
+    }
+
+    /**
+     * Client with the default timeout that serves GET requests from the given cache
+     * @param responseCache ResponseCache, may be shared between clients
+     */
+    public NetworkClient(ResponseCache responseCache) {
+        this(Duration.ofSeconds(Config.NETWORK_TIMEOUT_SECONDS), Duration.ofSeconds(Config.NETWORK_TIMEOUT_SECONDS), responseCache);
+    }
+
+    /**
+     * Client on the shared {@link NetworkTransport} with its own timeouts and an optional GET response cache
+     * @param connectTimeout Duration
+     * @param readTimeout read and write timeout
+     * @param responseCache ResponseCache, or null to disable caching
+     */
+    public NetworkClient(Duration connectTimeout, Duration readTimeout, @Nullable ResponseCache responseCache) {
+        this.responseCache = responseCache;
+        client = NetworkTransport.shared().newClientBuilder()
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .writeTimeout(readTimeout)
                 .build();
         objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
                 .setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL);
@@ -34,35 +98,234 @@ public class NetworkClient {
 
 
     public <T> T execute(String url, HttpMethods method, @Nullable Object requestBody, @Nullable Map<String, String> headers, Class<T> responseClass) throws NetworkException {
-        Request request = buildRequest(url, requestBody, headers, method);
-        try (Response response = client.newCall(request).execute()) {
-            handleResponse(response);
-            ResponseBody responseBody = response.body();
-            if (responseBody != null) {
-                String bodyString = responseBody.string();
-                if (!bodyString.isEmpty()) {
-                    log.info("Response JSON: {}", bodyString);
-                    try {
-                        return objectMapper.readValue(bodyString, responseClass); // Map the JSON response
-                    } catch (IOException e) {
-                        throw new NetworkException("Mapping failed: " + e.getMessage() + " for body: " + bodyString, e);
-                    }
-                }
+        return execute(NetworkRequest.of(url, method, requestBody, headers, responseClass));
+    }
+
+    /**
+     * Execute a request whose response is a generic type, e.g. {@code new TypeReference<List<User>>() {}}
+     */
+    public <T> T execute(String url, HttpMethods method, @Nullable Object requestBody, @Nullable Map<String, String> headers, TypeReference<T> responseType) throws NetworkException {
+        return execute(NetworkRequest.of(url, method, requestBody, headers, responseType));
+    }
+
+    public <T> T execute(NetworkRequest<T> request) throws NetworkException {
+        long start = System.nanoTime();
+        ResponseCache.Key cacheKey = cacheKey(request);
+        ResponseCache.Entry cached = cacheKey != null ? responseCache.lookup(cacheKey) : null;
+        if (cached != null && cached.isFresh()) {
+            recordCall(request, true, 0, null, start);
+            return cachedValue(cached);
+        }
+        int status = 0;
+        Throwable failure = null;
+        try (Response response = newCall(request, cached).execute()) {
+            status = response.code();
+            return readResponse(response, request.getResponseType(), cacheKey, cached);
+        } catch (IOException e) {
+            failure = e;
+            throw new NetworkException("Network request failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            recordCall(request, false, status, failure, start);
+        }
+    }
+
+    /**
+     * Execute a request on OkHttp's async dispatcher
+     * @param request NetworkRequest
+     * @return future completed with the mapped response, or exceptionally with a {@link NetworkException}
+     */
+    public <T> CompletableFuture<T> executeAsync(NetworkRequest<T> request) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ResponseCache.Key cacheKey = cacheKey(request);
+        ResponseCache.Entry cached = cacheKey != null ? responseCache.lookup(cacheKey) : null;
+        if (cached != null && cached.isFresh()) {
+            recordCall(request, true, 0, null, start);
+            future.complete(cachedValue(cached));
+            return future;
+        }
+        Call call;
+        try {
+            call = newCall(request, cached);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(new NetworkException("Could not build request for " + request.getUrl() + ": " + e.getMessage(), e));
+            return future;
+        }
+        AtomicInteger status = new AtomicInteger();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NotNull Call failedCall, @NotNull IOException e) {
+                future.completeExceptionally(new NetworkException("Network request failed: " + e.getMessage(), e));
             }
 
-            // Handle void or empty responses
-            if (responseClass.equals(Void.class) || responseClass.equals(Void.TYPE)) {
-                return null;
-            } else {
-                try {
-                    return responseClass.getDeclaredConstructor().newInstance();
-                } catch (Exception e) {
-                    throw new NetworkException("Could not create an instance of: " + responseClass.getName(), e);
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                status.set(response.code());
+                try (response) {
+                    future.complete(readResponse(response, request.getResponseType(), cacheKey, cached));
+                } catch (NetworkException e) {
+                    future.completeExceptionally(e);
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(new NetworkException("Network request failed: " + e.getMessage(), e));
                 }
             }
-        } catch (IOException e) {
-            throw new NetworkException("Network request failed: " + e.getMessage(), e);
+        });
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+            recordCall(request, false, status.get(), error, start);
+        });
+        return future;
+    }
+
+    /**
+     * Execute a batch with at most {@link Config#NETWORK_MAX_CONCURRENCY} requests in flight
+     * @see #executeAll(List, int)
+     */
+    public List<NetworkResult<?>> executeAll(List<? extends NetworkRequest<?>> batch) {
+        return executeAll(batch, Config.NETWORK_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Fan a batch out over the async dispatcher and wait for all of it
+     * @param batch requests, each may carry its own timeout
+     * @param maxConcurrency maximum number of requests in flight, requests to one host are also capped by
+     *                       {@link Config#NETWORK_MAX_REQUESTS_PER_HOST} of the shared dispatcher
+     * @return one result per request, in the order of the batch; failed requests hold their {@link NetworkException}
+     */
+    public List<NetworkResult<?>> executeAll(List<? extends NetworkRequest<?>> batch, int maxConcurrency) {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<CompletableFuture<?>> futures = new ArrayList<>(batch.size());
+        for (NetworkRequest<?> request : batch) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.add(CompletableFuture.failedFuture(new NetworkException("Batch interrupted before " + request.getUrl(), e)));
+                continue;
+            }
+            futures.add(executeAsync(request).whenComplete((value, error) -> permits.release()));
+        }
+
+        List<NetworkResult<?>> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<?> future : futures) {
+            results.add(toResult(future));
+        }
+        return results;
+    }
+
+    private static <T> NetworkResult<T> toResult(CompletableFuture<T> future) {
+        try {
+            return new NetworkResult<>(future.join(), null);
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            NetworkException error = cause instanceof NetworkException ? (NetworkException) cause : new NetworkException("Request failed: " + cause.getMessage(), cause);
+            return new NetworkResult<>(null, error);
+        }
+    }
+
+    /**
+     * Only GET requests are cached, and only when the client has a cache and the request does not bypass it
+     */
+    @Nullable
+    private ResponseCache.Key cacheKey(NetworkRequest<?> request) {
+        if (responseCache == null || request.getMethod() != HttpMethods.GET || request.isBypassCache()) {
+            return null;
+        }
+        return ResponseCache.key(request.getUrl(), request.getHeaders(), request.getResponseType());
+    }
+
+    /**
+     * Latency is tagged with the method and the endpoint, numeric path segments are folded into {id}
+     * so e.g. /users/1 and /users/2 share one histogram. The event keeps the full URL, async calls record it
+     * on the thread that completes them
+     */
+    private static void recordCall(NetworkRequest<?> request, boolean fromCache, int status, @Nullable Throwable failure, long start) {
+        String operation = "http." + request.getMethod() + (fromCache ? " (cache)" : "");
+        EventBuffer.recordRequest(operation, request.getUrl(), status, failure, start);
+        if (!Config.LATENCY_METRICS_ENABLED) {
+            return;
+        }
+        HttpUrl url = HttpUrl.parse(request.getUrl());
+        String endpoint = url == null ? request.getUrl() : url.host() + NUMERIC_SEGMENT.matcher(url.encodedPath()).replaceAll("/{id}");
+        LatencyRecorder.record(operation, LatencyRecorder.NONE, endpoint, start);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cachedValue(ResponseCache.Entry entry) {
+        return (T) entry.getValue();
+    }
+
+    private Call newCall(NetworkRequest<?> request, @Nullable ResponseCache.Entry stale) {
+        Map<String, String> headers = request.getHeaders();
+        if (stale != null) {
+            headers = headers == null ? new HashMap<>() : new HashMap<>(headers);
+            if (stale.getEtag() != null) {
+                headers.put("If-None-Match", stale.getEtag());
+            }
+            if (stale.getLastModified() != null) {
+                headers.put("If-Modified-Since", stale.getLastModified());
+            }
         }
+        Call call = client.newCall(buildRequest(request.getUrl(), request.getRequestBody(), headers, request.getMethod()));
+        if (request.getTimeout() != null) {
+            call.timeout().timeout(request.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return call;
+    }
+
+    private <T> T readResponse(Response response, Type responseType, @Nullable ResponseCache.Key cacheKey, @Nullable ResponseCache.Entry stale) throws IOException {
+        // 304 is not a 2xx, so it has to be picked up before handleResponse treats it as a failure
+        if (stale != null && response.code() == 304) {
+            responseCache.revalidated(cacheKey, stale);
+            return cachedValue(stale);
+        }
+        T value = readResponse(response, responseType);
+        if (cacheKey != null && value != null) {
+            responseCache.store(cacheKey, value, response.header("ETag"), response.header("Last-Modified"));
+        }
+        return value;
+    }
+
+    private <T> T readResponse(Response response, Type responseType) throws IOException {
+        ObjectReader reader = readerFor(responseType);
+        handleResponse(response);
+        logResponseBody(response);
+        BufferedSource source = Objects.requireNonNull(response.body()).source();
+        if (!source.exhausted()) {
+            try {
+                return reader.readValue(source.inputStream()); // Map the JSON response straight from the byte stream
+            } catch (IOException e) {
+                throw new NetworkException("Mapping failed for " + responseType.getTypeName() + ": " + e.getMessage(), e);
+            }
+        }
+
+        // Handle void or empty responses
+        return emptyResponse(reader.getValueType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T emptyResponse(JavaType responseType) {
+        Class<?> responseClass = responseType.getRawClass();
+        if (responseClass.equals(Void.class) || responseClass.equals(Void.TYPE)) {
+            return null;
+        }
+        try {
+            return (T) responseClass.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new NetworkException("Could not create an instance of: " + responseClass.getName(), e);
+        }
+    }
+
+    /**
+     * ObjectReaders are immutable and thread-safe, one is built per response type and reused
+     */
+    private ObjectReader readerFor(Type responseType) {
+        return readers.computeIfAbsent(responseType, type -> objectMapper.readerFor(objectMapper.constructType(type)));
     }
 
     private Request buildRequest(String url, @Nullable Object requestBody, @Nullable Map<String, String> headers, HttpMethods method) {
@@ -79,14 +342,12 @@ public class NetworkClient {
         RequestBody body = null;
         if (requestBody != null) {
             try {
-                String jsonBody = objectMapper.writeValueAsString(requestBody);
-                body = RequestBody.create(jsonBody, MediaType.parse(APPLICATION_JSON));
+                byte[] jsonBody = objectMapper.writeValueAsBytes(requestBody);
+                body = RequestBody.create(jsonBody, JSON_MEDIA_TYPE);
                 logRequest(method, url, jsonBody);
             } catch (JsonProcessingException e) {
                 throw new RuntimeException(e);
             }
-        } else {
-            logRequest(method, url, null);
         }
 
         switch (method) {
@@ -115,7 +376,7 @@ public class NetworkClient {
         if (!response.isSuccessful()) {
             String errorBody;
             try {
-                errorBody = response.body() != null ? response.body().string() : "No error details";
+                errorBody = response.body() != null ? response.peekBody(Config.NETWORK_LOG_MAX_BODY_BYTES).string() : "No error details";
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
@@ -129,10 +390,25 @@ public class NetworkClient {
         }
     }
 
-    private void logRequest(HttpMethods method, String url, String jsonBody) {
-        log.info("[{}] URL: {}", method, url);
-        if (jsonBody != null) {
-            log.info("[{}] Payload: {}", method, jsonBody);
+    /**
+     * Log the start of the response body for one in every {@link Config#NETWORK_LOG_SAMPLE_RATE} responses.
+     * The body is peeked up to the size cap, so it is still streamed to the reader afterwards
+     */
+    private void logResponseBody(Response response) throws IOException {
+        if (!log.isDebugEnabled() || responseCount.getAndIncrement() % Config.NETWORK_LOG_SAMPLE_RATE != 0) {
+            return;
+        }
+        ResponseBody preview = response.peekBody(Config.NETWORK_LOG_MAX_BODY_BYTES);
+        log.debug("Response JSON ({} bytes shown): {}", preview.contentLength(), preview.string());
+    }
+
+    /**
+     * Method, URL and status of every call are kept in the {@link EventBuffer}, only the payload is logged
+     */
+    private void logRequest(HttpMethods method, String url, byte[] jsonBody) {
+        if (log.isDebugEnabled()) {
+            int length = Math.min(jsonBody.length, Config.NETWORK_LOG_MAX_BODY_BYTES);
+            log.debug("[{}] Payload of {} ({} of {} bytes): {}", method, url, length, jsonBody.length, new String(jsonBody, 0, length, StandardCharsets.UTF_8));
         }
     }
 
@@ -0,0 +1,63 @@
+package org.qa.network;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Description of one call for {@link NetworkClient#executeAsync(NetworkRequest)} and {@link NetworkClient#executeAll(java.util.List)}
+ * @param <T> response type
+ */
+@Getter
+public class NetworkRequest<T> {
+    private final String url;
+    private final HttpMethods method;
+    @Nullable
+    private final Object requestBody;
+    @Nullable
+    private final Map<String, String> headers;
+    private final Type responseType;
+    @Nullable
+    private final Duration timeout;
+    private final boolean bypassCache;
+
+    private NetworkRequest(String url, HttpMethods method, @Nullable Object requestBody, @Nullable Map<String, String> headers, Type responseType, @Nullable Duration timeout, boolean bypassCache) {
+        this.url = url;
+        this.method = method;
+        this.requestBody = requestBody;
+        this.headers = headers;
+        this.responseType = responseType;
+        this.timeout = timeout;
+        this.bypassCache = bypassCache;
+    }
+
+    public static <T> NetworkRequest<T> of(String url, HttpMethods method, @Nullable Object requestBody, @Nullable Map<String, String> headers, Class<T> responseClass) {
+        return new NetworkRequest<>(url, method, requestBody, headers, responseClass, null, false);
+    }
+
+    public static <T> NetworkRequest<T> of(String url, HttpMethods method, @Nullable Object requestBody, @Nullable Map<String, String> headers, TypeReference<T> responseType) {
+        return new NetworkRequest<>(url, method, requestBody, headers, responseType.getType(), null, false);
+    }
+
+    /**
+     * Copy of this request that fails with a {@link NetworkClient.NetworkException} when the whole call
+     * (connect, write, server processing and read) takes longer than the timeout
+     * @param timeout Duration
+     * @return NetworkRequest
+     */
+    public NetworkRequest<T> withTimeout(Duration timeout) {
+        return new NetworkRequest<>(url, method, requestBody, headers, responseType, timeout, bypassCache);
+    }
+
+    /**
+     * Copy of this request that always goes to the server and does not touch the client's {@link ResponseCache}
+     * @return NetworkRequest
+     */
+    public NetworkRequest<T> withoutCache() {
+        return new NetworkRequest<>(url, method, requestBody, headers, responseType, timeout, true);
+    }
+}
@@ -0,0 +1,35 @@
+package org.qa.network;
+
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Outcome of one request of a batch, either the mapped response or the error it failed with
+ * @param <T> response type
+ */
+public class NetworkResult<T> {
+    private final T value;
+    @Getter
+    @Nullable
+    private final NetworkClient.NetworkException error;
+
+    NetworkResult(T value, @Nullable NetworkClient.NetworkException error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * @return the mapped response
+     * @throws NetworkClient.NetworkException the error of the request when it failed
+     */
+    public T getValue() {
+        if (error != null) {
+            throw error;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,102 @@
+package org.qa.network;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.jetbrains.annotations.NotNull;
+import org.qa.common.Config;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide HTTP transport shared by every {@link NetworkClient}.
+ * Clients derive from one base OkHttpClient, so they share a single connection pool, dispatcher and
+ * thread pool and reuse keep-alive connections, while each client keeps its own timeouts
+ */
+public class NetworkTransport {
+
+    private static final NetworkTransport SHARED = new NetworkTransport();
+
+    private final ConnectionPool connectionPool;
+    private final OkHttpClient baseClient;
+    private final AtomicLong poolHits = new AtomicLong();
+    private final AtomicLong poolMisses = new AtomicLong();
+
+    private NetworkTransport() {
+        connectionPool = new ConnectionPool(Config.NETWORK_POOL_MAX_IDLE, Config.NETWORK_POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Config.NETWORK_MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(Config.NETWORK_MAX_REQUESTS_PER_HOST);
+        baseClient = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .protocols(Config.NETWORK_HTTP2_ENABLED ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+                .eventListenerFactory(call -> new ConnectionTracker())
+                .build();
+    }
+
+    public static NetworkTransport shared() {
+        return SHARED;
+    }
+
+    /**
+     * Builder for a client on the shared transport, set per-client options such as timeouts on it
+     * @return OkHttpClient.Builder
+     */
+    public OkHttpClient.Builder newClientBuilder() {
+        return baseClient.newBuilder();
+    }
+
+    /** Calls served by a connection already in the pool */
+    public long getPoolHits() {
+        return poolHits.get();
+    }
+
+    /** Calls that had to open a new connection */
+    public long getPoolMisses() {
+        return poolMisses.get();
+    }
+
+    public int getIdleConnections() {
+        return connectionPool.idleConnectionCount();
+    }
+
+    public int getActiveConnections() {
+        return connectionPool.connectionCount() - connectionPool.idleConnectionCount();
+    }
+
+    public String describe() {
+        return String.format("poolHits=%d poolMisses=%d idleConnections=%d activeConnections=%d",
+                getPoolHits(), getPoolMisses(), getIdleConnections(), getActiveConnections());
+    }
+
+    /**
+     * Per-call listener: a call that acquires a connection without connecting first reused a pooled one
+     */
+    private class ConnectionTracker extends EventListener {
+        private boolean connected;
+
+        @Override
+        public void connectStart(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy) {
+            connected = true;
+        }
+
+        @Override
+        public void connectionAcquired(@NotNull Call call, @NotNull Connection connection) {
+            if (connected) {
+                poolMisses.incrementAndGet();
+            } else {
+                poolHits.incrementAndGet();
+            }
+            connected = false;
+        }
+    }
+}
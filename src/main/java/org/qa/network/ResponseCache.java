@@ -0,0 +1,149 @@
+package org.qa.network;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU/TTL store of already-deserialized GET responses, keyed by URL, request headers and response type.
+ * Entries past their TTL are revalidated with If-None-Match / If-Modified-Since when the server sent an ETag or
+ * Last-Modified, and a 304 refreshes the entry without transferring or mapping the body again.
+ * Cached objects are shared between callers and must be treated as read-only
+ */
+public class ResponseCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ResponseCache(int maxEntries, Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    static Key key(String url, @Nullable Map<String, String> headers, Type responseType) {
+        return new Key(url, headers == null ? Map.of() : new TreeMap<>(headers), responseType);
+    }
+
+    /**
+     * Fresh entries count as hits. Stale entries with validators are returned for revalidation and count as misses
+     * @return the entry, or null when there is nothing usable
+     */
+    @Nullable
+    synchronized Entry lookup(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isFresh()) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        if (entry != null && !entry.hasValidators()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    synchronized void store(Key key, Object value, @Nullable String etag, @Nullable String lastModified) {
+        entries.put(key, new Entry(value, etag, lastModified, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * The server answered 304 Not Modified, keep serving the cached value for another TTL
+     */
+    synchronized void revalidated(Key key, Entry entry) {
+        revalidations.incrementAndGet();
+        entry.expiresAtNanos = System.nanoTime() + ttlNanos;
+        entries.put(key, entry);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Stale entries confirmed by the server with 304 Not Modified */
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public String describe() {
+        return String.format("hits=%d misses=%d revalidations=%d evictions=%d size=%d",
+                getHits(), getMisses(), getRevalidations(), getEvictions(), size());
+    }
+
+    @EqualsAndHashCode
+    static final class Key {
+        private final String url;
+        private final Map<String, String> headers;
+        private final Type responseType;
+
+        private Key(String url, Map<String, String> headers, Type responseType) {
+            this.url = url;
+            this.headers = headers;
+            this.responseType = responseType;
+        }
+    }
+
+    @Getter
+    static final class Entry {
+        private final Object value;
+        @Nullable
+        private final String etag;
+        @Nullable
+        private final String lastModified;
+        private volatile long expiresAtNanos;
+
+        private Entry(Object value, @Nullable String etag, @Nullable String lastModified, long expiresAtNanos) {
+            this.value = value;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+
+        boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+}
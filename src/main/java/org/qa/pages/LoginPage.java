@@ -3,33 +3,37 @@ package org.qa.pages;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.PageFactory;
+import org.qa.helpers.CommandBatch;
+import org.qa.helpers.PageElements;
 import org.qa.helpers.SeleniumWrapper;
 
 public class LoginPage {
 
 
     @FindBy(id="user-name")
-    private WebElement user_name_text_box;
+    WebElement user_name_text_box;
 
     @FindBy(id="password")
-    private WebElement password_text_box;
+    WebElement password_text_box;
 
     @FindBy(id="login-button")
-    private WebElement login_button;
+    WebElement login_button;
 
+    /**
+     * Fills in the credentials and submits them in a single driver round trip
+     */
     public void login(String username, String password){
-        if(!isLoginPageLoaded()){
-            throw new RuntimeException();
-        }
-        SeleniumWrapper.inputText(user_name_text_box, username);
-        SeleniumWrapper.inputText(password_text_box, password);
-        SeleniumWrapper.clickOnElement(login_button);
+        CommandBatch batch = new CommandBatch();
+        batch.requireDisplayed(user_name_text_box);
+        batch.setValue(user_name_text_box, username);
+        batch.setValue(password_text_box, password);
+        batch.click(login_button);
+        batch.execute().orThrow();
 
     }
 
     public LoginPage(WebDriver driver) {
-        PageFactory.initElements(driver, this);
+        PageElements.initElements(driver, this);
     }
 
 
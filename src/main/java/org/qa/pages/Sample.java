@@ -3,12 +3,12 @@ package org.qa.pages;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.PageFactory;
+import org.qa.helpers.PageElements;
 
 public class Sample {
 
     public Sample(WebDriver driver){
-        PageFactory.initElements(driver, this);
+        PageElements.initElements(driver, this);
     }
 
     @FindBy(className = "class-name")
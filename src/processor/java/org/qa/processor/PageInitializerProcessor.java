@@ -0,0 +1,240 @@
+package org.qa.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code <PageClass>_PageInitializer} for every page object with @FindBy WebElement fields.
+ * The generated class builds the locators once and assigns the fields directly, so creating a page needs
+ * no reflection or proxy generation. Pages the generator cannot handle (private fields, @FindBys/@FindAll,
+ * List fields) are skipped with a warning and keep using the reflective initialiser
+ */
+@SupportedAnnotationTypes({"org.openqa.selenium.support.FindBy", "org.openqa.selenium.support.FindBys", "org.openqa.selenium.support.FindAll"})
+public class PageInitializerProcessor extends AbstractProcessor {
+
+    private static final String FIND_BY = "org.openqa.selenium.support.FindBy";
+    private static final String WEB_ELEMENT = "org.openqa.selenium.WebElement";
+    private static final String WEB_DRIVER = "org.openqa.selenium.WebDriver";
+    private static final String SUFFIX = "_PageInitializer";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> pages = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.FIELD) {
+                    pages.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        for (TypeElement page : pages) {
+            generate(page);
+        }
+        return false;
+    }
+
+    private void generate(TypeElement page) {
+        List<VariableElement> fields = new ArrayList<>();
+        List<String> locators = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(page.getEnclosedElements())) {
+            AnnotationMirror findBy = null;
+            for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+                String name = mirror.getAnnotationType().toString();
+                if (name.equals(FIND_BY)) {
+                    findBy = mirror;
+                } else if (name.startsWith("org.openqa.selenium.support.Find")) {
+                    skip(page, field, "@FindBys/@FindAll is not supported");
+                    return;
+                }
+            }
+            if (findBy == null) {
+                continue;
+            }
+            if (!field.asType().toString().equals(WEB_ELEMENT)) {
+                skip(page, field, "only WebElement fields are supported");
+                return;
+            }
+            if (field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.FINAL)) {
+                skip(page, field, "field must not be private or final");
+                return;
+            }
+            String locator = locator(findBy);
+            if (locator == null) {
+                skip(page, field, "locator could not be read");
+                return;
+            }
+            fields.add(field);
+            locators.add(locator);
+        }
+        if (fields.isEmpty()) {
+            return;
+        }
+        if (!page.getSuperclass().toString().equals("java.lang.Object")) {
+            skip(page, fields.get(0), "page classes with a superclass are not supported");
+            return;
+        }
+        if (page.getNestingKind().isNested() || page.getModifiers().contains(Modifier.PRIVATE)) {
+            skip(page, fields.get(0), "nested page classes are not supported");
+            return;
+        }
+
+        String packageName = ((PackageElement) processingEnv.getElementUtils().getPackageOf(page)).getQualifiedName().toString();
+        String pageName = page.getSimpleName().toString();
+        String className = pageName + SUFFIX;
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import org.openqa.selenium.By;\n")
+                .append("import org.openqa.selenium.WebDriver;\n")
+                .append("import org.qa.helpers.PageElementCache;\n")
+                .append("import org.qa.helpers.PageInitializer;\n\n")
+                .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("public final class ").append(className).append(" implements PageInitializer<").append(pageName).append("> {\n\n")
+                .append("    private static final By[] LOCATORS = {\n");
+        for (String locator : locators) {
+            source.append("            ").append(locator).append(",\n");
+        }
+        source.append("    };\n\n")
+                .append("    @Override\n")
+                .append("    public ").append(pageName).append(" create(WebDriver driver) {\n");
+        if (hasDriverConstructor(page)) {
+            source.append("        return new ").append(pageName).append("(driver);\n");
+        } else {
+            source.append("        ").append(pageName).append(" page = new ").append(pageName).append("();\n")
+                    .append("        initElements(driver, page);\n")
+                    .append("        return page;\n");
+        }
+        source.append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public PageElementCache initElements(WebDriver driver, ").append(pageName).append(" page) {\n")
+                .append("        PageElementCache cache = new PageElementCache(driver, ").append(pageName).append(".class, LOCATORS).resolveAll();\n");
+        for (int i = 0; i < fields.size(); i++) {
+            source.append("        page.").append(fields.get(i).getSimpleName()).append(" = cache.element(").append(i).append(");\n");
+        }
+        source.append("        return cache;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, page).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + qualifiedName + ": " + e.getMessage(), page);
+        }
+    }
+
+    private boolean hasDriverConstructor(TypeElement page) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(page.getEnclosedElements())) {
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.size() == 1 && parameters.get(0).asType().toString().equals(WEB_DRIVER)
+                    && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Translate a @FindBy annotation into the equivalent By factory call
+     */
+    private String locator(AnnotationMirror findBy) {
+        String how = null;
+        String using = null;
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : findBy.getElementValues().entrySet()) {
+            String attribute = entry.getKey().getSimpleName().toString();
+            Object value = entry.getValue().getValue();
+            switch (attribute) {
+                case "how":
+                    how = value.toString();
+                    break;
+                case "using":
+                    using = (String) value;
+                    break;
+                default:
+                    return byCall(attribute, (String) value);
+            }
+        }
+        if (how == null || using == null) {
+            return null;
+        }
+        switch (how) {
+            case "CLASS_NAME":
+                return byCall("className", using);
+            case "CSS":
+                return byCall("css", using);
+            case "ID":
+                return byCall("id", using);
+            case "ID_OR_NAME":
+                return "new org.openqa.selenium.support.pagefactory.ByIdOrName(" + literal(using) + ")";
+            case "LINK_TEXT":
+                return byCall("linkText", using);
+            case "NAME":
+                return byCall("name", using);
+            case "PARTIAL_LINK_TEXT":
+                return byCall("partialLinkText", using);
+            case "TAG_NAME":
+                return byCall("tagName", using);
+            case "XPATH":
+                return byCall("xpath", using);
+            default:
+                return null;
+        }
+    }
+
+    private String byCall(String attribute, String value) {
+        String method = attribute.equals("css") ? "cssSelector" : attribute;
+        return "By." + method + "(" + literal(value) + ")";
+    }
+
+    private String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                default:
+                    literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void skip(TypeElement page, Element field, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "No initialiser generated for " + page.getQualifiedName() + ": " + reason + ", falling back to reflection", field);
+    }
+}
@@ -0,0 +1,82 @@
+package tests;
+
+import org.qa.data.DataFile;
+import org.qa.data.DataProviders;
+import org.qa.data.DataRows;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming data providers, no browser needed
+ */
+public class DataProviderTest {
+
+    public static class User {
+        public int id;
+        public String username;
+        public String country;
+        public boolean active;
+    }
+
+    private static final Set<Integer> invokedUsers = ConcurrentHashMap.newKeySet();
+
+    @DataFile(value = "users.csv", filter = {"active=true", "country!=IN"})
+    @Test(dataProvider = "dataFileParallel", dataProviderClass = DataProviders.class)
+    public void rowsAreBoundAndFiltered(User user) {
+        Assert.assertTrue(user.active);
+        Assert.assertNotEquals(user.country, "IN");
+        Assert.assertTrue(invokedUsers.add(user.id), "user " + user.id + " ran twice");
+    }
+
+    /**
+     * Users 1, 3 and 4 match the filter, a run with -PdataPartition only gets its own share of them
+     */
+    @Test(dependsOnMethods = "rowsAreBoundAndFiltered")
+    public void everyMatchingRowRanOnce() throws NoSuchMethodException {
+        Set<Integer> partitionUsers = new HashSet<>();
+        DataProviders.rows(getClass().getMethod("rowsAreBoundAndFiltered", User.class))
+                .forEach(user -> partitionUsers.add(((User) user).id));
+        Assert.assertTrue(Set.of(1, 3, 4).containsAll(partitionUsers), "rows outside the filter: " + partitionUsers);
+        Assert.assertEquals(invokedUsers, partitionUsers);
+    }
+
+    @Test
+    public void partitionsSplitTheSampleWithoutDuplicates() throws IOException {
+        Path file = Files.createTempFile("users", ".jsonl");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                for (int id = 1; id <= 10_000; id++) {
+                    writer.write("{\"id\":" + id + ",\"username\":\"user" + id + "\",\"country\":\"" + (id % 2 == 0 ? "DE" : "US") + "\",\"active\":true}\n");
+                }
+            }
+            List<Integer> sample = ids(DataRows.jsonl(file, User.class).where("country", "DE").sample(0.25, 7).limit(1_000));
+            Assert.assertEquals(sample.size(), 1_000);
+            Assert.assertEquals(ids(DataRows.jsonl(file, User.class).where("country", "DE").sample(0.25, 7).limit(1_000)), sample, "sample is not repeatable");
+
+            List<Integer> partitioned = new ArrayList<>();
+            for (int partition = 1; partition <= 3; partition++) {
+                partitioned.addAll(ids(DataRows.jsonl(file, User.class).where("country", "DE").sample(0.25, 7).limit(1_000).partition(partition + "-of-3")));
+            }
+            Assert.assertEquals(partitioned.size(), sample.size());
+            Assert.assertEquals(new HashSet<>(partitioned), new HashSet<>(sample));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<Integer> ids(DataRows<User> rows) {
+        List<Integer> ids = new ArrayList<>();
+        rows.forEach(user -> ids.add(user.id));
+        return ids;
+    }
+}
@@ -0,0 +1,46 @@
+package tests;
+
+import org.qa.load.LoadPlan;
+import org.qa.load.LoadReport;
+import org.qa.load.LoadRunner;
+import org.qa.load.StubServer;
+import org.qa.network.HttpMethods;
+import org.qa.network.NetworkClient;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Short open-model run against the in-process stub backend, no browser needed
+ */
+public class LoadSmokeTest {
+
+    private static final String USER = "{\"id\":1,\"name\":\"standard_user\",\"roles\":[\"buyer\"]}";
+
+    @Test
+    public void openModelLoadAgainstStubServer() {
+        try (StubServer server = StubServer.start()
+                .stub(HttpMethods.GET, "/users/*", 200, USER, Duration.ofMillis(5))
+                .stub(HttpMethods.POST, "/users", 201, USER)
+                .stub(HttpMethods.GET, "/broken", 500, "{}")) {
+            LoadPlan plan = LoadPlan.of(100, Duration.ofSeconds(2))
+                    .withRampUp(Duration.ofSeconds(1))
+                    .withScenario("getUser", 8, client -> client.execute(server.url("/users/1"), HttpMethods.GET, null, null, Map.class))
+                    .withScenario("createUser", 2, client -> client.execute(server.url("/users"), HttpMethods.POST, Map.of("name", "new_user"), null, Map.class))
+                    .withScenario("broken", 1, client -> client.execute(server.url("/broken"), HttpMethods.GET, null, null, Map.class));
+
+            LoadReport report = new LoadRunner(new NetworkClient()).run(plan);
+            report.write();
+
+            LoadReport.Scenario total = report.getTotal();
+            Assert.assertEquals(total.getRequests() + total.getDropped(), plan.getArrivals());
+            Assert.assertEquals(server.getRequestCount(), total.getRequests());
+            Assert.assertEquals(report.getScenario("getUser").getFailures(), 0);
+            Assert.assertEquals(report.getScenario("createUser").getFailures(), 0);
+            Assert.assertEquals(report.getScenario("broken").getFailures(), report.getScenario("broken").getRequests());
+            Assert.assertTrue(report.getScenario("getUser").percentileMillis(50) >= 5, "stub delay is part of the response time");
+        }
+    }
+}
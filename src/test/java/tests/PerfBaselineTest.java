@@ -0,0 +1,48 @@
+package tests;
+
+import org.qa.metrics.PerfBaseline;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Regression statistics of the performance baseline, no browser needed
+ */
+public class PerfBaselineTest {
+
+    private static final List<Double> WINDOW = List.of(100.0, 102.0, 98.0, 101.0, 99.0, 100.0, 103.0, 97.0);
+
+    @Test
+    public void valuesWithinTheWindowAreNoRegression() {
+        Assert.assertNull(PerfBaseline.regression("wallMillis", WINDOW, 100));
+        Assert.assertNull(PerfBaseline.regression("wallMillis", WINDOW, 104));
+    }
+
+    @Test
+    public void outliersWellAboveTheMedianAreRegressions() {
+        String regression = PerfBaseline.regression("wallMillis", WINDOW, 150);
+        Assert.assertNotNull(regression);
+        Assert.assertTrue(regression.startsWith("wallMillis 150.0 is 50% above its baseline median 100.0"), regression);
+    }
+
+    @Test
+    public void smallChangesOfStableTimingsAreNoRegression() {
+        // 110 is an outlier by its z-score, but only 10% above the median
+        Assert.assertNull(PerfBaseline.regression("wallMillis", WINDOW, 110));
+        Assert.assertNull(PerfBaseline.regression("wallMillis", Collections.nCopies(10, 100.0), 110));
+        Assert.assertNotNull(PerfBaseline.regression("wallMillis", Collections.nCopies(10, 100.0), 125));
+    }
+
+    @Test
+    public void slowRunsInTheWindowDoNotHideTheNextOne() {
+        List<Double> window = List.of(100.0, 101.0, 99.0, 100.0, 102.0, 98.0, 400.0, 420.0);
+        Assert.assertNotNull(PerfBaseline.regression("wallMillis", window, 160));
+    }
+
+    @Test
+    public void shortHistoryIsNoRegression() {
+        Assert.assertNull(PerfBaseline.regression("wallMillis", List.of(100.0, 100.0, 100.0, 100.0), 1000));
+    }
+}
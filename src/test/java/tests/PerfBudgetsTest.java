@@ -0,0 +1,104 @@
+package tests;
+
+import org.qa.metrics.PerfBudget;
+import org.qa.metrics.PerfBudgets;
+import org.testng.Assert;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Performance budgets turning passing results into failures, checked on fixture tests run by a TestNG instance
+ * of their own, no browser needed
+ */
+public class PerfBudgetsTest {
+
+    private static final Map<String, ITestResult> results = new ConcurrentHashMap<>();
+
+    @Test
+    public void brokenBudgetsFailPassingTests() {
+        run();
+        assertFailedBy("brokenWallTime", "wallMillis");
+        assertFailedBy("brokenStepBudget", "step.checkout");
+        assertFailedBy("brokenStepLimit", "step.search");
+    }
+
+    @Test
+    public void budgetsThatHoldDoNotFailTheTest() {
+        run();
+        // Only the budget is checked, the baseline regression gate also looks at this test and follows perf.regression.mode
+        ITestResult result = results.get("withinBudget");
+        Assert.assertNull(result.getAttribute("perf.budget"));
+        Assert.assertFalse(result.getThrowable() instanceof PerfBudgets.PerfBudgetException && result.getAttribute("perf.regression") == null);
+        Assert.assertTrue(((Map<?, ?>) result.getAttribute("perf.measurements")).containsKey("step.checkout"));
+    }
+
+    private static void assertFailedBy(String method, String budget) {
+        ITestResult result = results.get(method);
+        Assert.assertEquals(result.getStatus(), ITestResult.FAILURE, method + " should have failed its budget");
+        Assert.assertTrue(result.getThrowable() instanceof PerfBudgets.PerfBudgetException, String.valueOf(result.getThrowable()));
+        Assert.assertTrue(result.getThrowable().getMessage().contains(budget + " "), result.getThrowable().getMessage());
+        Assert.assertEquals(((List<?>) result.getAttribute("perf.budget")).size(), 1);
+    }
+
+    private static synchronized void run() {
+        if (!results.isEmpty()) {
+            return;
+        }
+        TestNG testNG = new TestNG(false);
+        testNG.setTestClasses(new Class[]{BudgetedTests.class});
+        testNG.setGroups("fixture");
+        testNG.addListener(new IInvokedMethodListener() {
+            @Override
+            public void afterInvocation(IInvokedMethod method, ITestResult result) {
+                if (method.isTestMethod()) {
+                    PerfBudgets.enforce(result, List.of());
+                    results.put(result.getMethod().getMethodName(), result);
+                }
+            }
+        });
+        testNG.run();
+    }
+
+    /**
+     * Passing tests with budgets, run by {@link #run()} only
+     */
+    @Test(groups = "fixture")
+    public static class BudgetedTests {
+
+        @PerfBudget(maxMillis = 10, mode = PerfBudget.Mode.FAIL)
+        public void brokenWallTime() throws InterruptedException {
+            Thread.sleep(50);
+        }
+
+        @PerfBudget(steps = "checkout=10", mode = PerfBudget.Mode.FAIL)
+        public void brokenStepBudget() {
+            PerfBudgets.step("checkout", BudgetedTests::pause);
+        }
+
+        @PerfBudget(mode = PerfBudget.Mode.FAIL)
+        public void brokenStepLimit() {
+            PerfBudgets.step("search", Duration.ofMillis(10), BudgetedTests::pause);
+        }
+
+        @PerfBudget(steps = "checkout=10000", mode = PerfBudget.Mode.FAIL)
+        public void withinBudget() {
+            PerfBudgets.step("checkout", () -> {});
+        }
+
+        private static void pause() {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
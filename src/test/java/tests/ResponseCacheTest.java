@@ -0,0 +1,110 @@
+package tests;
+
+import org.qa.load.StubServer;
+import org.qa.network.HttpMethods;
+import org.qa.network.NetworkClient;
+import org.qa.network.ResponseCache;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * GET response cache against the in-process stub backend, no browser needed
+ */
+public class ResponseCacheTest {
+
+    private static final String ITEM = "{\"id\":1,\"name\":\"backpack\"}";
+    private static final String CHANGED_ITEM = "{\"id\":1,\"name\":\"bike light\"}";
+    private static final Duration EXPIRED = Duration.ofMillis(150);
+
+    @Test
+    public void freshEntriesAreServedFromTheCache() {
+        try (StubServer server = StubServer.start().stub(HttpMethods.GET, "/items/1", 200, ITEM, Map.of("ETag", "\"v1\""))) {
+            ResponseCache cache = new ResponseCache(10, Duration.ofMinutes(1));
+            NetworkClient client = new NetworkClient(cache);
+
+            Map<?, ?> first = client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+            Map<?, ?> second = client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+
+            Assert.assertSame(second, first, "a hit returns the object mapped for the first response");
+            Assert.assertEquals(server.getRequestCount(), 1);
+            Assert.assertEquals(cache.getHits(), 1);
+            Assert.assertEquals(cache.getMisses(), 1);
+        }
+    }
+
+    @Test
+    public void staleEntriesAreRevalidatedWithTheirETag() throws InterruptedException {
+        try (StubServer server = StubServer.start().stub(HttpMethods.GET, "/items/1", 200, ITEM, Map.of("ETag", "\"v1\""))) {
+            ResponseCache cache = new ResponseCache(10, Duration.ofMillis(50));
+            NetworkClient client = new NetworkClient(cache);
+
+            Map<?, ?> first = client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+            Thread.sleep(EXPIRED.toMillis());
+            Map<?, ?> revalidated = client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+
+            Assert.assertSame(revalidated, first, "a 304 keeps serving the cached object");
+            Assert.assertEquals(server.getRequestCount(), 2);
+            Assert.assertEquals(cache.getRevalidations(), 1);
+
+            client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+            Assert.assertEquals(server.getRequestCount(), 2, "the 304 made the entry fresh again");
+            Assert.assertEquals(cache.getHits(), 1);
+        }
+    }
+
+    @Test
+    public void changedResourcesAreFetchedAgain() throws InterruptedException {
+        try (StubServer server = StubServer.start().stub(HttpMethods.GET, "/items/1", 200, ITEM, Map.of("ETag", "\"v1\""))) {
+            ResponseCache cache = new ResponseCache(10, Duration.ofMillis(50));
+            NetworkClient client = new NetworkClient(cache);
+
+            client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+            server.stub(HttpMethods.GET, "/items/1", 200, CHANGED_ITEM, Map.of("ETag", "\"v2\""));
+            Thread.sleep(EXPIRED.toMillis());
+            Map<?, ?> changed = client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+
+            Assert.assertEquals(changed.get("name"), "bike light");
+            Assert.assertEquals(cache.getRevalidations(), 0);
+        }
+    }
+
+    @Test
+    public void staleEntriesWithoutValidatorsExpire() throws InterruptedException {
+        try (StubServer server = StubServer.start().stub(HttpMethods.GET, "/items/1", 200, ITEM)) {
+            ResponseCache cache = new ResponseCache(10, Duration.ofMillis(50));
+            NetworkClient client = new NetworkClient(cache);
+
+            Map<?, ?> first = client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+            Thread.sleep(EXPIRED.toMillis());
+            Map<?, ?> second = client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+
+            Assert.assertNotSame(second, first);
+            Assert.assertEquals(second, first);
+            Assert.assertEquals(server.getRequestCount(), 2);
+            Assert.assertEquals(cache.getMisses(), 2);
+            Assert.assertEquals(cache.getRevalidations(), 0);
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() {
+        try (StubServer server = StubServer.start().stub(HttpMethods.GET, "/items/*", 200, ITEM)) {
+            ResponseCache cache = new ResponseCache(2, Duration.ofMinutes(1));
+            NetworkClient client = new NetworkClient(cache);
+
+            client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+            client.execute(server.url("/items/2"), HttpMethods.GET, null, null, Map.class);
+            client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+            client.execute(server.url("/items/3"), HttpMethods.GET, null, null, Map.class);
+            client.execute(server.url("/items/1"), HttpMethods.GET, null, null, Map.class);
+            client.execute(server.url("/items/2"), HttpMethods.GET, null, null, Map.class);
+
+            Assert.assertEquals(cache.getEvictions(), 2);
+            Assert.assertEquals(cache.size(), 2);
+            Assert.assertEquals(server.getRequestCount(), 4, "item 2 was evicted by item 3 and fetched again");
+        }
+    }
+}
@@ -2,6 +2,9 @@ package tests;
 
 
 import org.qa.common.Config;
+import org.qa.driverfactory.WebDriverFactory;
+import org.qa.helpers.SessionStore;
+import org.qa.metrics.PerfBudgets;
 import static org.qa.helpers.SeleniumWrapper.*;
 import org.qa.pages.LoginPage;
 
@@ -14,9 +17,11 @@ public class TestModules {
     }
 
     public static void validLoginScenario() {
-        launchPortal();
-        LoginPage loginPage = getPage(LoginPage.class);
-        loginPage.login(Config.VALID_USER_NAME, Config.VALID_PASSWORD);
+        SessionStore.login(WebDriverFactory.getWebDriver(), Config.URL, Config.VALID_USER_NAME, () -> {
+            launchPortal();
+            LoginPage loginPage = getPage(LoginPage.class);
+            PerfBudgets.step("login", () -> loginPage.login(Config.VALID_USER_NAME, Config.VALID_PASSWORD));
+        });
     }
 
 }